@@ -0,0 +1,63 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Time from the first {@link ToastUtil#show(Context, String)} of a process until the toast
+ * is attached, including loading and initialising the toast classes. Only the first toast
+ * of a JVM is cold, so this runs once and relies on every test class getting a JVM of its
+ * own (forkEvery 1 in the build script).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ColdStartBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("coldStart");
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void firstToast() throws Exception {
+        final Context context = RuntimeEnvironment.application;
+        final long[] inflated = new long[1];
+
+        sHarness.measure("toastUtil.firstToast", 1, 0, 1, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                /* Setting the scheduler is the first use of the manager, as the first show would be */
+                SuperToast.setScheduler(new VirtualToastScheduler());
+
+                /* Shown inline on the scheduler thread, nothing waits for the dedup window */
+                ToastUtil.setDedupMode(ToastUtil.DedupMode.LEADING_EDGE);
+                ToastUtil.show(context, "first");
+                inflated[0] = ManagerSuperToast.getInstance().getViewPool().getMissCount();
+            }
+
+            @Override
+            public void tearDown() {
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setScheduler(null);
+                ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+            }
+        });
+
+        /* The first toast inflated the one view that was shown */
+        assertEquals(1, inflated[0]);
+    }
+
+}
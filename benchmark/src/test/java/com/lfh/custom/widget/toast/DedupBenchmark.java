@@ -0,0 +1,127 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BenchmarkResult;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Batch dedup of bursts of 10, 1k and 100k toasts, every tenth message distinct, with the
+ * hash based dedup of {@link ToastChannel} and with the ArrayList.contains scan it
+ * replaced. Both compare the same dedup keys.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DedupBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("dedup");
+
+    /* The quadratic scan over 100k toasts takes seconds, a few iterations are enough */
+    private static final int LARGE_BURST = 100000;
+    private static final int LARGE_WARMUP = 1;
+    private static final int LARGE_ITERATIONS = 3;
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void burstOf10() throws Exception {
+        measure(10);
+    }
+
+    @Test
+    public void burstOf1k() throws Exception {
+        measure(1000);
+    }
+
+    @Test
+    public void burstOf100k() throws Exception {
+        measure(LARGE_BURST);
+    }
+
+    private static void measure(final int burst) throws Exception {
+        final ToastUtil.ToastParam[] params = burst(RuntimeEnvironment.application, burst);
+        final boolean large = burst >= LARGE_BURST;
+        final int[] kept = new int[1];
+
+        final ToastChannel channel = new ToastChannel("benchmark-dedup-" + burst, burst, 500);
+        final HashSet<Object> keys = new HashSet<Object>();
+        measure("hashed." + burst, burst, large, new BenchmarkHarness.Body() {
+            @Override
+            public void setUp(int operations) {
+                for (ToastUtil.ToastParam param : params) {
+                    channel.offer(param);
+                }
+            }
+
+            @Override
+            public void run(int operations) {
+                channel.drainDeduped(keys);
+                kept[0] = channel.getBatch().size();
+                channel.getBatch().clear();
+            }
+        }).addMetric("kept", kept[0]);
+        final int hashedKept = kept[0];
+
+        final ArrayList<Object> legacyKeys = new ArrayList<Object>();
+        final ArrayList<ToastUtil.ToastParam> legacyKept = new ArrayList<ToastUtil.ToastParam>();
+        measure("arrayListContains." + burst, burst, large, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                legacyKeys.clear();
+                legacyKept.clear();
+                kept[0] = legacyDedup(params, legacyKeys, legacyKept);
+            }
+        }).addMetric("kept", kept[0]);
+
+        /* Both keep the first toast of every message, in order */
+        assertEquals(hashedKept, kept[0]);
+        assertEquals(Math.max(1, burst / 10), kept[0]);
+    }
+
+    private static BenchmarkResult measure(String name, int burst, boolean large, BenchmarkHarness.Body body)
+            throws Exception {
+        return large
+                ? sHarness.measure(name, burst, LARGE_WARMUP, LARGE_ITERATIONS, body)
+                : sHarness.measure(name, burst, body);
+    }
+
+    /* Every tenth message is new, the others repeat one of them */
+    private static ToastUtil.ToastParam[] burst(Context context, int size) {
+        final int distinct = Math.max(1, size / 10);
+        final ToastUtil.ToastParam[] params = new ToastUtil.ToastParam[size];
+        for (int i = 0; i < size; i++) {
+            params[i] = new ToastUtil.ToastParam(context, "message " + (i % distinct));
+        }
+        return params;
+    }
+
+    /* The dedup loop of ToastUtil before the dedup keys were hashed */
+    private static int legacyDedup(ToastUtil.ToastParam[] params, ArrayList<Object> keys,
+                                   ArrayList<ToastUtil.ToastParam> kept) {
+        for (ToastUtil.ToastParam param : params) {
+            final Object key = param.dedupKey(ToastUtil.DedupPolicy.MESSAGE);
+            if (!keys.contains(key)) {
+                keys.add(key);
+                kept.add(param);
+            }
+        }
+        return kept.size();
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Post-to-display latency of {@link ToastUtil} toasts in the TRAILING and LEADING_EDGE
+ * dedup modes, in virtual milliseconds. Every post carries a distinct message so none is
+ * dropped and the n-th toast attached is the n-th posted; a toast counts as attached when
+ * it takes its view from the pool.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DedupLatencyBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("latency");
+
+    private static final int POSTS = 200;
+    private static final long SEED = 42;
+
+    /* Sparse posts, mostly further apart than a toast takes */
+    private static final long STEADY_MEAN_GAP = 5000;
+
+    /* Bursts of a few posts close together, with quiet periods in between */
+    private static final int BURST_SIZE = 4;
+    private static final long BURST_GAP = 50;
+    private static final long BURST_PERIOD = 30000;
+
+    /* Longer than any dedup window, so an iteration does not see the posts of the last one */
+    private static final long IDLE_BETWEEN_ITERATIONS = 60 * 60 * 1000;
+
+    /* Virtual time keeps running across iterations and workloads, the dedup windows remember it */
+    private static long sClock;
+
+    @After
+    public void tearDown() {
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+    }
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void steady() throws Exception {
+        final long[] postTimes = steadyPostTimes();
+        measure("steady.trailing", ToastUtil.DedupMode.TRAILING, postTimes);
+        measure("steady.leadingEdge", ToastUtil.DedupMode.LEADING_EDGE, postTimes);
+    }
+
+    @Test
+    public void bursty() throws Exception {
+        final long[] postTimes = burstyPostTimes();
+        measure("bursty.trailing", ToastUtil.DedupMode.TRAILING, postTimes);
+        measure("bursty.leadingEdge", ToastUtil.DedupMode.LEADING_EDGE, postTimes);
+    }
+
+    private static void measure(String name, final ToastUtil.DedupMode mode, final long[] postTimes)
+            throws Exception {
+        final Context context = RuntimeEnvironment.application;
+        final ToastViewPool pool = ManagerSuperToast.getInstance().getViewPool();
+        final long[] latencies = new long[postTimes.length];
+        final int[] attached = new int[1];
+
+        sHarness.measure(name, postTimes.length, new BenchmarkHarness.Body() {
+            private VirtualToastScheduler mScheduler;
+            private int mAttached;
+            private int mAcquired;
+            private long mStart;
+
+            @Override
+            public void setUp(int operations) {
+                mStart = sClock;
+                mScheduler = new VirtualToastScheduler(mStart);
+                SuperToast.setScheduler(mScheduler);
+                SuperToast.cancelAllSuperToasts();
+                ToastUtil.setDedupMode(mode);
+                mAttached = 0;
+                mAcquired = pool.getHitCount() + pool.getMissCount();
+            }
+
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < postTimes.length; i++) {
+                    advanceTo(mStart + postTimes[i]);
+                    ToastUtil.show(context, "message " + i);
+                    recordAttached();
+                }
+                advanceTo(Long.MAX_VALUE);
+                attached[0] = mAttached;
+                sClock = mScheduler.now() + IDLE_BETWEEN_ITERATIONS;
+            }
+
+            @Override
+            public void tearDown() {
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setScheduler(null);
+            }
+
+            /* Step from deadline to deadline so every attach is seen at its own time */
+            private void advanceTo(long time) {
+                long next;
+                while ((next = mScheduler.getNextTaskTime()) >= 0 && next <= time) {
+                    mScheduler.advanceTo(next);
+                    recordAttached();
+                }
+                if (time != Long.MAX_VALUE) {
+                    mScheduler.advanceTo(time);
+                }
+            }
+
+            private void recordAttached() {
+                final int acquired = pool.getHitCount() + pool.getMissCount();
+                for (; mAcquired < acquired; mAcquired++) {
+                    latencies[mAttached] = mScheduler.now() - mStart - postTimes[mAttached];
+                    mAttached++;
+                }
+            }
+        });
+
+        final long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        assertEquals("every post is shown", postTimes.length, attached[0]);
+        sHarness.getResults().get(sHarness.getResults().size() - 1)
+                .addMetric("p50Millis", percentile(sorted, 0.50))
+                .addMetric("p99Millis", percentile(sorted, 0.99))
+                .addMetric("maxMillis", sorted[sorted.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static long[] steadyPostTimes() {
+        final Random random = new Random(SEED);
+        final long[] times = new long[POSTS];
+        long time = 1000;
+        for (int i = 0; i < POSTS; i++) {
+            /* Exponential gaps, i.e. posts at random like independent events */
+            time += (long) (-Math.log(1 - random.nextDouble()) * STEADY_MEAN_GAP);
+            times[i] = time;
+        }
+        return times;
+    }
+
+    private static long[] burstyPostTimes() {
+        final long[] times = new long[POSTS];
+        for (int i = 0; i < POSTS; i++) {
+            times[i] = 1000 + (i / BURST_SIZE) * BURST_PERIOD + (i % BURST_SIZE) * BURST_GAP;
+        }
+        return times;
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.lfh.custom.widget.toast;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BenchmarkResult;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Counts the classes, method references and field references an APK carries per package,
+ * the figures the 64K reference limit applies to, so the dex size of a dependency can be
+ * compared before and after a change. Reads the APK given by {@value #PROPERTY_APK} and
+ * is skipped if there is none, build one first with ./gradlew :app:assembleDebug.
+ */
+public class DexCountBenchmark {
+
+    public static final String PROPERTY_APK = "benchmark.apk";
+
+    private static final String DEFAULT_APK = "../app/build/outputs/apk/app-debug.apk";
+
+    /* Packages reported on their own, everything else is only part of the totals */
+    private static final String[] PACKAGES = {"Lrx/", "Lcom/lfh/", "Landroid/support/"};
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("dex");
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void countReferences() throws Exception {
+        final File apk = new File(System.getProperty(PROPERTY_APK, DEFAULT_APK));
+        Assume.assumeTrue("No APK at " + apk.getAbsolutePath(), apk.isFile());
+
+        final long[] totals = new long[4];
+        final long[][] perPackage = new long[PACKAGES.length][3];
+
+        final BenchmarkResult result = sHarness.measure("dex." + apk.getName(), 1, 0, 1, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) throws IOException {
+                final ZipFile zip = new ZipFile(apk);
+                try {
+                    final Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        final ZipEntry entry = entries.nextElement();
+                        if (entry.getName().startsWith("classes") && entry.getName().endsWith(".dex")) {
+                            count(read(zip.getInputStream(entry)), totals, perPackage);
+                        }
+                    }
+                } finally {
+                    zip.close();
+                }
+            }
+        });
+
+        result.addMetric("dexBytes", totals[0])
+                .addMetric("classes", totals[1])
+                .addMetric("methodRefs", totals[2])
+                .addMetric("fieldRefs", totals[3]);
+        for (int i = 0; i < PACKAGES.length; i++) {
+            final String name = PACKAGES[i].substring(1, PACKAGES[i].length() - 1).replace('/', '.');
+            result.addMetric(name + ".classes", perPackage[i][0])
+                    .addMetric(name + ".methodRefs", perPackage[i][1])
+                    .addMetric(name + ".fieldRefs", perPackage[i][2]);
+        }
+    }
+
+    /* Walks the id sections of one dex file, see the dex format header layout */
+    private static void count(byte[] bytes, long[] totals, long[][] perPackage) {
+        final ByteBuffer dex = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        final int stringOffset = dex.getInt(0x3c);
+        final int typeCount = dex.getInt(0x40);
+        final int typeOffset = dex.getInt(0x44);
+        final int fieldCount = dex.getInt(0x50);
+        final int fieldOffset = dex.getInt(0x54);
+        final int methodCount = dex.getInt(0x58);
+        final int methodOffset = dex.getInt(0x5c);
+        final int classCount = dex.getInt(0x60);
+        final int classOffset = dex.getInt(0x64);
+
+        final int[] typePackage = new int[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            typePackage[i] = packageOf(string(dex, stringOffset, dex.getInt(typeOffset + 4 * i)));
+        }
+
+        totals[0] += bytes.length;
+        totals[1] += classCount;
+        totals[2] += methodCount;
+        totals[3] += fieldCount;
+
+        for (int i = 0; i < classCount; i++) {
+            increment(perPackage, typePackage[dex.getInt(classOffset + 32 * i)], 0);
+        }
+        for (int i = 0; i < methodCount; i++) {
+            increment(perPackage, typePackage[dex.getShort(methodOffset + 8 * i) & 0xffff], 1);
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            increment(perPackage, typePackage[dex.getShort(fieldOffset + 8 * i) & 0xffff], 2);
+        }
+    }
+
+    private static void increment(long[][] perPackage, int index, int column) {
+        if (index >= 0) {
+            perPackage[index][column]++;
+        }
+    }
+
+    private static int packageOf(String descriptor) {
+        for (int i = 0; i < PACKAGES.length; i++) {
+            if (descriptor.startsWith(PACKAGES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* A string id points to a ULEB128 length followed by MUTF-8 data, type names are ASCII */
+    private static String string(ByteBuffer dex, int stringOffset, int index) {
+        int offset = dex.getInt(stringOffset + 4 * index);
+        while ((dex.get(offset) & 0x80) != 0) {
+            offset++;
+        }
+        offset++;
+
+        int end = offset;
+        while (dex.get(end) != 0) {
+            end++;
+        }
+        final byte[] data = new byte[end - offset];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = dex.get(offset + i);
+        }
+        return new String(data, Charset.forName("UTF-8"));
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[16384];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.lfh.custom.widget.toast;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Show to dismiss of a burst of SuperToasts in each {@link SuperToast.HostMode}: a window
+ * per toast, one persistent window, and views inside an Activity. Besides the CPU time per
+ * toast, every result reports the virtual time the burst occupies the screen, which
+ * differs by the enter and exit times of the host. Every toast is checked to have been
+ * shown by the host of its mode rather than by the window fallback.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class HostModeBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("hostMode");
+
+    private static final int BURST = 30;
+
+    @After
+    public void tearDown() {
+        SuperToast.setHostMode(RuntimeEnvironment.application, SuperToast.HostMode.WINDOW);
+    }
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void window() throws Exception {
+        measure(SuperToast.HostMode.WINDOW, RuntimeEnvironment.application, WindowToastHost.class);
+    }
+
+    @Test
+    public void persistentWindow() throws Exception {
+        measure(SuperToast.HostMode.PERSISTENT_WINDOW, RuntimeEnvironment.application,
+                PersistentWindowToastHost.class);
+    }
+
+    @Test
+    public void activity() throws Exception {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        measure(SuperToast.HostMode.ACTIVITY, activity, ActivityToastHost.class);
+    }
+
+    private static void measure(final SuperToast.HostMode hostMode, final Context context,
+                                Class<? extends ToastHost> hostClass) throws Exception {
+        final long[] virtualTime = new long[1];
+        final ToastHost[] hosts = new ToastHost[BURST];
+
+        sHarness.measure(hostMode.name(), BURST, new BenchmarkHarness.Body() {
+            private VirtualToastScheduler mScheduler;
+            private SuperToast[] mSuperToasts;
+
+            @Override
+            public void setUp(int operations) {
+                mScheduler = new VirtualToastScheduler();
+                SuperToast.setScheduler(mScheduler);
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setHostMode(context, hostMode);
+                mSuperToasts = new SuperToast[operations];
+                for (int i = 0; i < operations; i++) {
+                    mSuperToasts[i] = SuperToast.create(context, "toast " + i, SuperToast.Duration.VERY_SHORT);
+                }
+            }
+
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    mSuperToasts[i].show();
+                }
+                mScheduler.runUntilIdle();
+                virtualTime[0] = mScheduler.now();
+                for (int i = 0; i < operations; i++) {
+                    hosts[i] = mSuperToasts[i].getHost();
+                }
+            }
+
+            @Override
+            public void tearDown() {
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setScheduler(null);
+            }
+        })
+                .addMetric("virtualMillis", virtualTime[0])
+                .addMetric("virtualMillisPerToast", virtualTime[0] / (double) BURST)
+                .addMetric("durationMillis", SuperToast.Duration.VERY_SHORT);
+
+        for (ToastHost host : hosts) {
+            assertEquals(hostClass, host.getClass());
+        }
+    }
+
+}
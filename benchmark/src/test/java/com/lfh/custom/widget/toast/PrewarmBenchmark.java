@@ -0,0 +1,68 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Time of the first toast of a process after {@link ToastUtil#prewarm(Context)}, to be
+ * compared with the same toast without prewarming in {@link ColdStartBenchmark}. Like
+ * that one it runs once in a JVM of its own.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class PrewarmBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("prewarm");
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void firstToastAfterPrewarm() throws Exception {
+        final Context context = RuntimeEnvironment.application;
+        final long[] inflated = new long[1];
+
+        sHarness.measure("toastUtil.firstToastAfterPrewarm", 1, 0, 1, new BenchmarkHarness.Body() {
+            @Override
+            public void setUp(int operations) {
+                final VirtualToastScheduler scheduler = new VirtualToastScheduler();
+                SuperToast.setScheduler(scheduler);
+
+                /* As from Application.onCreate, the main thread part runs before the first toast */
+                ToastUtil.prewarm(context);
+                scheduler.runDueTasks();
+            }
+
+            @Override
+            public void run(int operations) {
+                ToastUtil.setDedupMode(ToastUtil.DedupMode.LEADING_EDGE);
+                ToastUtil.show(context, "first");
+                inflated[0] = ManagerSuperToast.getInstance().getViewPool().getMissCount();
+            }
+
+            @Override
+            public void tearDown() {
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setScheduler(null);
+                ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+            }
+        });
+
+        /* The toast took the view inflated by prewarm */
+        assertEquals(0, inflated[0]);
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.view.Gravity;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.android.plugins.RxAndroidPlugins;
+import rx.android.plugins.RxAndroidSchedulersHook;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.plugins.RxJavaHooks;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+import rx.subjects.ReplaySubject;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The "before" of {@link ColdStartBenchmark}: the same first toast of a JVM, posted through
+ * the RxJava pipeline ToastUtil used before RxJava was removed, up to the toast being
+ * attached. Compare toastUtil.firstToast in coldStart.json with rxToastUtil.firstToast in
+ * rxBaseline.json, both from their own JVM (forkEvery 1 in the build script). The buffer
+ * runs on a TestScheduler and the main thread scheduler is immediate, so the 500 ms buffer
+ * window is skipped in virtual time and only class loading and initialisation are timed,
+ * as with the leading edge toast of ColdStartBenchmark.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RxBaselineColdStartBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("rxBaseline");
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void firstToast() throws Exception {
+        final Context context = RuntimeEnvironment.application;
+        final long[] inflated = new long[1];
+
+        sHarness.measure("rxToastUtil.firstToast", 1, 0, 1, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                /* Setting the scheduler is the first use of the manager, as the first show would be */
+                SuperToast.setScheduler(new VirtualToastScheduler());
+
+                /* Loads the RxJava classes the pipeline loads anyway */
+                final TestScheduler computation = new TestScheduler();
+                RxJavaHooks.setOnComputationScheduler(new Func1<Scheduler, Scheduler>() {
+                    @Override
+                    public Scheduler call(Scheduler pScheduler) {
+                        return computation;
+                    }
+                });
+                RxJavaHooks.setOnIOScheduler(new Func1<Scheduler, Scheduler>() {
+                    @Override
+                    public Scheduler call(Scheduler pScheduler) {
+                        return Schedulers.immediate();
+                    }
+                });
+                RxAndroidPlugins.getInstance().registerSchedulersHook(new RxAndroidSchedulersHook() {
+                    @Override
+                    public Scheduler getMainThreadScheduler() {
+                        return Schedulers.immediate();
+                    }
+                });
+
+                RxToastUtil.show(context, "first");
+                computation.advanceTimeBy(RxToastUtil.TIME_SPAN, TimeUnit.MILLISECONDS);
+                inflated[0] = ManagerSuperToast.getInstance().getViewPool().getMissCount();
+            }
+
+            @Override
+            public void tearDown() {
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setScheduler(null);
+                RxJavaHooks.reset();
+                RxAndroidPlugins.getInstance().reset();
+            }
+        });
+
+        /* The first toast inflated the one view that was shown */
+        assertEquals(1, inflated[0]);
+    }
+
+    /* ToastUtil as it was with RxJava, reduced to show(Context, String) */
+    private static final class RxToastUtil {
+        static final int TIME_SPAN = 500;
+        private static RxToastUtil sInstance;
+        private ReplaySubject<ToastParam> mToastSubject = ReplaySubject.create();
+
+        private RxToastUtil() {
+            mToastSubject
+                    .filter(new Func1<ToastParam, Boolean>() {
+                        @Override
+                        public Boolean call(ToastParam pToastParam) {
+                            return null != pToastParam.mContext && !TextUtils.isEmpty(pToastParam.mString);
+                        }
+                    })
+                    .buffer(TIME_SPAN, TimeUnit.MILLISECONDS)
+                    .filter(new Func1<List<ToastParam>, Boolean>() {
+                        @Override
+                        public Boolean call(List<ToastParam> pToastParams) {
+                            return null != pToastParams && !pToastParams.isEmpty();
+                        }
+                    })
+                    .map(new Func1<List<ToastParam>, List<ToastParam>>() {
+                        @Override
+                        public List<ToastParam> call(List<ToastParam> pToastParams) {
+                            ArrayList<ToastParam> newParams = new ArrayList<>();
+
+                            for (ToastParam param : pToastParams) {
+                                if (!newParams.contains(param)) {
+                                    newParams.add(param);
+                                }
+                            }
+
+                            return newParams;
+                        }
+                    })
+                    .flatMap(new Func1<List<ToastParam>, Observable<ToastParam>>() {
+                        @Override
+                        public Observable<ToastParam> call(List<ToastParam> pToastParams) {
+                            return Observable.from(pToastParams);
+                        }
+                    })
+                    .subscribeOn(Schedulers.io())
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(new Action1<ToastParam>() {
+                        @Override
+                        public void call(ToastParam pToastParam) {
+                            toast(pToastParam.mContext, pToastParam.mString, pToastParam.mGravity);
+                        }
+                    }, new Action1<Throwable>() {
+                        @Override
+                        public void call(Throwable pThrowable) {
+                            pThrowable.printStackTrace();
+                        }
+                    });
+        }
+
+        private static RxToastUtil instance() {
+            if (null == sInstance) {
+                synchronized (RxToastUtil.class) {
+                    if (null == sInstance) {
+                        sInstance = new RxToastUtil();
+                    }
+                }
+            }
+
+            return sInstance;
+        }
+
+        private void toast(Context pContext, String pMessage, int pGravity) {
+            SuperToast superToast = SuperToast.create(pContext.getApplicationContext(), pMessage, SuperToast.Duration.VERY_SHORT);
+            superToast.setTextSize(SuperToast.TextSize.MEDIUM);
+            superToast.setGravity(pGravity, 0, 0);
+            superToast.show();
+        }
+
+        static void show(Context pContext, String pMessage) {
+            instance().mToastSubject.onNext(new ToastParam(pContext, pMessage));
+        }
+    }
+
+    /* ToastParam as it was, equal by message only */
+    private static final class ToastParam {
+        private final Context mContext;
+        private final String mString;
+        private int mGravity = Gravity.BOTTOM;
+
+        private ToastParam(Context pContext, String pString) {
+            mContext = pContext;
+            mString = pString;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ToastParam that = (ToastParam) o;
+            return mString != null ? mString.equals(that.mString) : that.mString == null;
+        }
+
+        @Override
+        public int hashCode() {
+            return mString != null ? mString.hashCode() : 0;
+        }
+    }
+
+}
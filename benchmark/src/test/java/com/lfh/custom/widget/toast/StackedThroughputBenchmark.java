@@ -0,0 +1,106 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Toasts per second through the manager with one, two and three visible slots. Besides
+ * the CPU time per toast, every result reports how many toasts per second reach the
+ * screen in virtual time, which only depends on the durations and the animations.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class StackedThroughputBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("throughput");
+
+    private static final int BURST = 30;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.setMaxVisible(1);
+    }
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void oneSlot() throws Exception {
+        measure(1);
+    }
+
+    @Test
+    public void twoSlots() throws Exception {
+        measure(2);
+    }
+
+    @Test
+    public void threeSlots() throws Exception {
+        measure(3);
+    }
+
+    private void measure(int slots) throws Exception {
+        SuperToast.setMaxVisible(slots);
+        final long[] virtualTime = new long[1];
+
+        final SuperToast prototype = SuperToast.create(mContext, "prototype", SuperToast.Duration.VERY_SHORT);
+        final WindowToastHost host = new WindowToastHost();
+
+        sHarness.measure("slots." + slots, BURST, new BenchmarkHarness.Body() {
+            private VirtualToastScheduler mScheduler;
+            private SuperToast[] mSuperToasts;
+
+            @Override
+            public void setUp(int operations) {
+                mScheduler = new VirtualToastScheduler();
+                SuperToast.setScheduler(mScheduler);
+                SuperToast.cancelAllSuperToasts();
+                mSuperToasts = new SuperToast[operations];
+                for (int i = 0; i < operations; i++) {
+                    mSuperToasts[i] = SuperToast.create(mContext, "toast " + i, SuperToast.Duration.VERY_SHORT);
+                }
+            }
+
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    mSuperToasts[i].show();
+                }
+                mScheduler.runUntilIdle();
+                virtualTime[0] = mScheduler.now();
+            }
+
+            @Override
+            public void tearDown() {
+                SuperToast.cancelAllSuperToasts();
+                SuperToast.setScheduler(null);
+            }
+        })
+                .addMetric("virtualMillis", virtualTime[0])
+                .addMetric("toastsPerVirtualSecond", BURST * 1000.0 / virtualTime[0])
+                .addMetric("enterMillis", host.getEnterDuration(prototype))
+                .addMetric("exitMillis", host.getExitDuration(prototype))
+                .addMetric("durationMillis", SuperToast.Duration.VERY_SHORT);
+    }
+
+}
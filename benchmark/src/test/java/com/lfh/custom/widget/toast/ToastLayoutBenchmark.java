@@ -0,0 +1,120 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Inflate, measure/layout and draw of the flat toast layout against the former layout,
+ * whose LinearLayout only added the bottom padding. Under Robolectric measure and layout
+ * run the framework code, while draw goes to a shadow canvas and only covers the
+ * traversal of the view tree, rasterizing has to be measured on a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastLayoutBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("layout");
+
+    private static final int OPERATIONS = 500;
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+
+    private static final int FLAT_LAYOUT = R.layout.super_toast_view;
+    private static final int LEGACY_LAYOUT = com.lfh.custom.widget.toast.benchmark.R.layout.benchmark_legacy_toast_view;
+
+    private Context mContext;
+    private LayoutInflater mInflater;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mInflater = LayoutInflater.from(mContext);
+    }
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void inflate() throws Exception {
+        measureInflate("inflate.flat", FLAT_LAYOUT);
+        measureInflate("inflate.legacy", LEGACY_LAYOUT);
+    }
+
+    @Test
+    public void measureAndLayout() throws Exception {
+        measureLayout("measureLayout.flat", FLAT_LAYOUT);
+        measureLayout("measureLayout.legacy", LEGACY_LAYOUT);
+    }
+
+    @Test
+    public void draw() throws Exception {
+        measureDraw("draw.flat", FLAT_LAYOUT);
+        measureDraw("draw.legacy", LEGACY_LAYOUT);
+    }
+
+    private void measureInflate(String name, final int layout) throws Exception {
+        sHarness.measure(name, OPERATIONS, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    BenchmarkHarness.consume(mInflater.inflate(layout, null));
+                }
+            }
+        });
+    }
+
+    private void measureLayout(String name, int layout) throws Exception {
+        final View view = mInflater.inflate(layout, null);
+
+        sHarness.measure(name, OPERATIONS, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    /* A new message invalidates the measurement of every SuperToast */
+                    view.forceLayout();
+                    measureAndLayout(view);
+                }
+            }
+        });
+    }
+
+    private void measureDraw(String name, int layout) throws Exception {
+        final View view = mInflater.inflate(layout, null);
+        measureAndLayout(view);
+        final Bitmap bitmap = Bitmap.createBitmap(SCREEN_WIDTH, SCREEN_HEIGHT / 4, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+
+        sHarness.measure(name, OPERATIONS, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    view.draw(canvas);
+                }
+            }
+        });
+        bitmap.recycle();
+    }
+
+    private static void measureAndLayout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.AT_MOST));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import com.lfh.custom.widget.toast.benchmark.BenchmarkHarness;
+import com.lfh.custom.widget.toast.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+
+/**
+ * Throughput of the stages of the toast pipeline on the JVM: building a SuperToast, the
+ * manager queue from show() to dismissal, a {@link ToastUtil} burst and the dedup stage of
+ * a channel. SuperToasts run on a {@link VirtualToastScheduler}, so only CPU time is
+ * measured and never the toast durations.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastPipelineBenchmark {
+
+    private static final BenchmarkHarness sHarness = new BenchmarkHarness("pipeline");
+
+    /* Distinct messages, bursts repeat them like a retry loop would */
+    private static final String[] MESSAGES = new String[16];
+
+    static {
+        for (int i = 0; i < MESSAGES.length; i++) {
+            MESSAGES[i] = "message " + i;
+        }
+    }
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+    }
+
+    @AfterClass
+    public static void report() throws Exception {
+        sHarness.report();
+    }
+
+    @Test
+    public void superToastConstruction() throws Exception {
+        sHarness.measure("superToast.create", 10000, new BenchmarkHarness.Body() {
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    BenchmarkHarness.consume(SuperToast.create(mContext, MESSAGES[i % MESSAGES.length],
+                            SuperToast.Duration.VERY_SHORT));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void managerEnqueueDequeue() throws Exception {
+        sHarness.measure("manager.showToDismiss", 1000, new SimulationBody() {
+            private SuperToast[] mSuperToasts;
+
+            @Override
+            public void setUp(int operations) {
+                super.setUp(operations);
+                mSuperToasts = new SuperToast[operations];
+                for (int i = 0; i < operations; i++) {
+                    mSuperToasts[i] = SuperToast.create(mContext, MESSAGES[i % MESSAGES.length],
+                            SuperToast.Duration.VERY_SHORT);
+                }
+            }
+
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    mSuperToasts[i].show();
+                }
+                mScheduler.runUntilIdle();
+            }
+        });
+    }
+
+    @Test
+    public void toastUtilBurst() throws Exception {
+        final ToastChannel channel = ToastUtil.getChannel("benchmark-burst");
+
+        sHarness.measure("toastUtil.burst", 1000, new SimulationBody() {
+            @Override
+            public void run(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    channel.show(mContext, MESSAGES[i % MESSAGES.length]);
+                }
+                mScheduler.runUntilIdle();
+            }
+        });
+    }
+
+    @Test
+    public void dedupStage() throws Exception {
+        final int operations = 1000;
+        final ToastChannel channel = new ToastChannel("benchmark-dedup", operations, 500);
+        final HashSet<Object> keys = new HashSet<Object>();
+
+        sHarness.measure("channel.dedup", operations, new BenchmarkHarness.Body() {
+            @Override
+            public void setUp(int operations) {
+                for (int i = 0; i < operations; i++) {
+                    channel.offer(new ToastUtil.ToastParam(mContext, MESSAGES[i % MESSAGES.length]));
+                }
+            }
+
+            @Override
+            public void run(int operations) {
+                BenchmarkHarness.consume(channel.drainDeduped(keys));
+                channel.getBatch().clear();
+            }
+        });
+    }
+
+    /* Runs every iteration on a fresh virtual scheduler and leaves nothing behind */
+    private abstract static class SimulationBody extends BenchmarkHarness.Body {
+
+        VirtualToastScheduler mScheduler;
+
+        @Override
+        public void setUp(int operations) {
+            mScheduler = new VirtualToastScheduler();
+            SuperToast.setScheduler(mScheduler);
+            SuperToast.cancelAllSuperToasts();
+        }
+
+        @Override
+        public void tearDown() {
+            SuperToast.cancelAllSuperToasts();
+            SuperToast.setScheduler(null);
+        }
+    }
+
+}
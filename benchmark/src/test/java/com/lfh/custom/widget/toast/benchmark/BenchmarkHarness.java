@@ -0,0 +1,139 @@
+package com.lfh.custom.widget.toast.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal JVM micro benchmark harness. Every benchmark runs a number of warmup
+ * iterations followed by measured iterations of a fixed number of operations, and the
+ * time per operation of each measured iteration is kept as a sample. Results of a suite
+ * are written as JSON by {@link JsonReporter}.
+ * <p>
+ * The iteration counts and the output directory can be changed with the system
+ * properties {@value #PROPERTY_WARMUP}, {@value #PROPERTY_ITERATIONS} and
+ * {@value #PROPERTY_OUTPUT_DIR}.
+ */
+public final class BenchmarkHarness {
+
+    public static final String PROPERTY_WARMUP = "benchmark.warmup";
+    public static final String PROPERTY_ITERATIONS = "benchmark.iterations";
+    public static final String PROPERTY_OUTPUT_DIR = "benchmark.outputDir";
+
+    private static final int DEFAULT_WARMUP = 5;
+    private static final int DEFAULT_ITERATIONS = 15;
+    private static final String DEFAULT_OUTPUT_DIR = "build/benchmark";
+
+    /* Keeps results of the measured code reachable so the JIT cannot drop it */
+    private static volatile Object sSink;
+
+    /**
+     * Code under measurement. {@link #setUp(int)} and {@link #tearDown()} run around every
+     * iteration and are not timed.
+     */
+    public abstract static class Body {
+
+        public void setUp(int operations) throws Exception {
+        }
+
+        public abstract void run(int operations) throws Exception;
+
+        public void tearDown() throws Exception {
+        }
+    }
+
+    private final String mSuite;
+    private final int mWarmup;
+    private final int mIterations;
+    private final List<BenchmarkResult> mResults = new ArrayList<BenchmarkResult>();
+
+    public BenchmarkHarness(String suite) {
+        this.mSuite = suite;
+        this.mWarmup = Integer.getInteger(PROPERTY_WARMUP, DEFAULT_WARMUP);
+        this.mIterations = Math.max(1, Integer.getInteger(PROPERTY_ITERATIONS, DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * Passes a value out of the measured code so it is not optimised away.
+     *
+     * @param value any result of the measured code
+     */
+    public static void consume(Object value) {
+        sSink = value;
+    }
+
+    /**
+     * Measures a benchmark and keeps its result for {@link #report()}.
+     *
+     * @param name       name of the benchmark, unique within the suite
+     * @param operations operations per iteration, the time of an iteration is divided by it
+     * @param body       {@link Body}
+     * @return {@link BenchmarkResult} to which extra metrics may be added
+     */
+    public BenchmarkResult measure(String name, int operations, Body body) throws Exception {
+        return measure(name, operations, mWarmup, mIterations, body);
+    }
+
+    /**
+     * Measures a benchmark with its own iteration counts, for a body that is too slow for
+     * the defaults of the suite.
+     *
+     * @param name       name of the benchmark, unique within the suite
+     * @param operations operations per iteration, the time of an iteration is divided by it
+     * @param warmup     iterations run before measuring
+     * @param iterations measured iterations, at least 1
+     * @param body       {@link Body}
+     * @return {@link BenchmarkResult} to which extra metrics may be added
+     */
+    public BenchmarkResult measure(String name, int operations, int warmup, int iterations, Body body)
+            throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            runIteration(operations, body);
+        }
+
+        final double[] nanosPerOperation = new double[Math.max(1, iterations)];
+        for (int i = 0; i < nanosPerOperation.length; i++) {
+            nanosPerOperation[i] = (double) runIteration(operations, body) / operations;
+        }
+
+        final BenchmarkResult result = new BenchmarkResult(name, operations, nanosPerOperation);
+        mResults.add(result);
+        System.out.println(mSuite + " " + result);
+        return result;
+    }
+
+    /**
+     * Results measured so far, in measuring order.
+     *
+     * @return List
+     */
+    public List<BenchmarkResult> getResults() {
+        return Collections.unmodifiableList(mResults);
+    }
+
+    /**
+     * Writes the results of the suite to &lt;outputDir&gt;/&lt;suite&gt;.json.
+     *
+     * @return the written file
+     */
+    public File report() throws IOException {
+        final File dir = new File(System.getProperty(PROPERTY_OUTPUT_DIR, DEFAULT_OUTPUT_DIR));
+        final File file = JsonReporter.write(dir, mSuite, mResults);
+        System.out.println(mSuite + " results written to " + file.getAbsolutePath());
+        return file;
+    }
+
+    private static long runIteration(int operations, Body body) throws Exception {
+        body.setUp(operations);
+        try {
+            final long start = System.nanoTime();
+            body.run(operations);
+            return System.nanoTime() - start;
+        } finally {
+            body.tearDown();
+        }
+    }
+
+}
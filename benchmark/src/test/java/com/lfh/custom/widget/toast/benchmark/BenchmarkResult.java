@@ -0,0 +1,98 @@
+package com.lfh.custom.widget.toast.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timing samples of one benchmark, one sample per measured iteration in nanoseconds per
+ * operation, together with extra metrics a benchmark reports such as counters or
+ * latency percentiles.
+ */
+public final class BenchmarkResult {
+
+    private final String mName;
+    private final int mOperations;
+    private final double[] mSamples;
+    private final Map<String, Number> mMetrics = new LinkedHashMap<String, Number>();
+
+    BenchmarkResult(String name, int operations, double[] nanosPerOperation) {
+        this.mName = name;
+        this.mOperations = operations;
+        this.mSamples = nanosPerOperation.clone();
+        Arrays.sort(this.mSamples);
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getOperations() {
+        return mOperations;
+    }
+
+    public int getIterations() {
+        return mSamples.length;
+    }
+
+    public double getMinNanos() {
+        return mSamples[0];
+    }
+
+    public double getMaxNanos() {
+        return mSamples[mSamples.length - 1];
+    }
+
+    public double getMedianNanos() {
+        final int middle = mSamples.length / 2;
+        return mSamples.length % 2 == 1 ? mSamples[middle] : (mSamples[middle - 1] + mSamples[middle]) / 2;
+    }
+
+    public double getMeanNanos() {
+        double sum = 0;
+        for (double sample : mSamples) {
+            sum += sample;
+        }
+        return sum / mSamples.length;
+    }
+
+    /**
+     * Operations per second at the median time per operation.
+     *
+     * @return double
+     */
+    public double getOperationsPerSecond() {
+        final double median = getMedianNanos();
+        return median > 0 ? 1e9 / median : 0;
+    }
+
+    /**
+     * Adds a metric that is reported next to the timings.
+     *
+     * @param name  name of the metric
+     * @param value value of the metric
+     * @return this result
+     */
+    public BenchmarkResult addMetric(String name, Number value) {
+        mMetrics.put(name, value);
+        return this;
+    }
+
+    public Map<String, Number> getMetrics() {
+        return Collections.unmodifiableMap(mMetrics);
+    }
+
+    double[] getSamples() {
+        return mSamples.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: median %.1f ns/op, min %.1f ns/op, %.0f ops/s%s",
+                mName, getMedianNanos(), getMinNanos(), getOperationsPerSecond(),
+                mMetrics.isEmpty() ? "" : " " + mMetrics);
+    }
+
+}
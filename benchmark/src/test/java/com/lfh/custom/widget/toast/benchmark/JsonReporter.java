@@ -0,0 +1,143 @@
+package com.lfh.custom.widget.toast.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the results of a benchmark suite as one JSON object, together with the JVM and
+ * machine they were measured on, so runs can be collected and compared.
+ */
+public final class JsonReporter {
+
+    private JsonReporter() {
+    }
+
+    /**
+     * Writes the results to &lt;dir&gt;/&lt;suite&gt;.json, replacing an earlier run.
+     *
+     * @return the written file
+     */
+    public static File write(File dir, String suite, List<BenchmarkResult> results) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        final File file = new File(dir, suite + ".json");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(toJson(suite, results));
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Returns the results as a JSON string, timings are in nanoseconds per operation.
+     *
+     * @return JSON string
+     */
+    public static String toJson(String suite, List<BenchmarkResult> results) {
+        final StringBuilder json = new StringBuilder(512 + results.size() * 256);
+        json.append("{\"suite\":");
+        appendString(json, suite);
+        json.append(",\"environment\":{\"javaVersion\":");
+        appendString(json, System.getProperty("java.version"));
+        json.append(",\"vm\":");
+        appendString(json, System.getProperty("java.vm.name"));
+        json.append(",\"os\":");
+        appendString(json, System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        json.append(",\"processors\":").append(Runtime.getRuntime().availableProcessors());
+        json.append("},\"benchmarks\":[");
+
+        for (int i = 0; i < results.size(); i++) {
+            final BenchmarkResult result = results.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":");
+            appendString(json, result.getName());
+            json.append(",\"operations\":").append(result.getOperations());
+            json.append(",\"iterations\":").append(result.getIterations());
+            json.append(",\"medianNsPerOp\":");
+            appendNumber(json, result.getMedianNanos());
+            json.append(",\"meanNsPerOp\":");
+            appendNumber(json, result.getMeanNanos());
+            json.append(",\"minNsPerOp\":");
+            appendNumber(json, result.getMinNanos());
+            json.append(",\"maxNsPerOp\":");
+            appendNumber(json, result.getMaxNanos());
+            json.append(",\"opsPerSecond\":");
+            appendNumber(json, result.getOperationsPerSecond());
+            json.append(",\"metrics\":{");
+
+            boolean first = true;
+            for (Map.Entry<String, Number> metric : result.getMetrics().entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                appendString(json, metric.getKey());
+                json.append(':');
+                appendNumber(json, metric.getValue().doubleValue());
+            }
+            json.append("}}");
+        }
+
+        json.append("]}");
+        return json.toString();
+    }
+
+    private static void appendNumber(StringBuilder json, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            json.append((long) value);
+        } else {
+            json.append(String.format(Locale.US, "%.3f", value));
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format(Locale.US, "\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.lfh.custom.widget.toast;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Hosts {@link SuperToast}s as views inside the content view of an Activity instead of
+ * in TYPE_TOAST windows, so showing and dismissing one is a view tree operation without a
+ * window manager round trip. A SuperToast created with an Activity context is shown in
+ * that Activity, any other in the resumed Activity, or in a window of its own while no
+ * Activity is resumed. SuperToasts of a destroyed Activity are dropped.
+ */
+final class ActivityToastHost extends ContainerToastHost
+        implements Application.ActivityLifecycleCallbacks {
+
+    /* Only used on the main thread */
+    private WeakReference<Activity> mResumedActivity = new WeakReference<Activity>(null);
+
+    ActivityToastHost(Application application) {
+        application.registerActivityLifecycleCallbacks(this);
+    }
+
+    @Override
+    ViewGroup obtainContainer(SuperToast superToast, WindowManager.LayoutParams params) {
+        final Activity activity = resolveActivity(superToast.getContext());
+        if (activity == null) {
+            return null;
+        }
+
+        final View content = activity.findViewById(android.R.id.content);
+        if (!(content instanceof ViewGroup)) {
+            return null;
+        }
+
+        superToast.setHostActivity(activity);
+        return (ViewGroup) content;
+    }
+
+    @Override
+    public void detach(SuperToast superToast) {
+        super.detach(superToast);
+        superToast.setHostActivity(null);
+    }
+
+    /* The Activity of the context if it can still show views, otherwise the resumed one */
+    private Activity resolveActivity(Context context) {
+        if (context instanceof Activity) {
+            final Activity activity = (Activity) context;
+            return isAlive(activity) ? activity : null;
+        }
+
+        final Activity resumed = mResumedActivity.get();
+        return resumed != null && isAlive(resumed) ? resumed : null;
+    }
+
+    private static boolean isAlive(Activity activity) {
+        if (activity.isFinishing()) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1 || !activity.isDestroyed();
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        mResumedActivity = new WeakReference<Activity>(activity);
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        clearResumed(activity);
+        ManagerSuperToast.getInstance().removeSuperToasts(activity);
+    }
+
+    private void clearResumed(Activity activity) {
+        if (mResumedActivity.get() == activity) {
+            mResumedActivity.clear();
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+    }
+
+    /* A paused Activity may be covered or in the background, its content view is not seen */
+    @Override
+    public void onActivityPaused(Activity activity) {
+        clearResumed(activity);
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        clearResumed(activity);
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.lfh.custom.widget.toast;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 前沿去重窗口，用于 {@link ToastUtil.DedupMode#LEADING_EDGE}
+ * <p>
+ * 某个 key 第一次出现时立即放行，并在窗口时间内丢弃相同 key 的消息<br/>
+ * 窗口长度随消息的到达频率变化：用指数加权移动平均（EWMA）估计消息间隔，
+ * 消息稀疏时窗口缩短到 {@link #MIN_WINDOW}，消息密集时放宽到 {@link #MAX_WINDOW}
+ */
+final class AdaptiveDedupWindow {
+    static final long MIN_WINDOW = 100;
+    static final long MAX_WINDOW = 2000;
+    /* EWMA 中新间隔的权重 */
+    private static final double ALPHA = 0.2;
+    /* 记录的 key 超过该数量时清理已过期的 key */
+    private static final int PRUNE_THRESHOLD = 64;
+
+    private final long mBaseWindow;
+    private final Map<Object, Long> mExpiries = new HashMap<>();
+    private double mAverageInterval;
+    private long mLastArrival = -1;
+
+    /**
+     * @param pBaseWindow 消息平均间隔等于该值时的窗口长度，也是初始窗口长度
+     */
+    AdaptiveDedupWindow(long pBaseWindow) {
+        mBaseWindow = pBaseWindow;
+        mAverageInterval = pBaseWindow;
+    }
+
+    /**
+     * 记录一次消息到达
+     *
+     * @param pKey 去重用的 key
+     * @param pNow 当前时间
+     * @return 应该立即显示时返回 true，是窗口内的重复消息时返回 false
+     */
+    synchronized boolean tryAcquire(Object pKey, long pNow) {
+        if (mLastArrival >= 0) {
+            long interval = Math.max(0, pNow - mLastArrival);
+            mAverageInterval = ALPHA * interval + (1 - ALPHA) * mAverageInterval;
+        }
+        mLastArrival = pNow;
+
+        Long expiry = mExpiries.get(pKey);
+        if (null != expiry && pNow < expiry) {
+            return false;
+        }
+
+        if (mExpiries.size() >= PRUNE_THRESHOLD) {
+            prune(pNow);
+        }
+        mExpiries.put(pKey, pNow + getWindow());
+
+        return true;
+    }
+
+    /**
+     * 当前的窗口长度，与消息平均间隔成反比
+     *
+     * @return 毫秒
+     */
+    synchronized long getWindow() {
+        if (mAverageInterval < 1) {
+            return MAX_WINDOW;
+        }
+
+        long window = (long) (mBaseWindow * mBaseWindow / mAverageInterval);
+        return Math.max(MIN_WINDOW, Math.min(MAX_WINDOW, window));
+    }
+
+    private void prune(long pNow) {
+        Iterator<Long> iterator = mExpiries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() <= pNow) {
+                iterator.remove();
+            }
+        }
+    }
+}
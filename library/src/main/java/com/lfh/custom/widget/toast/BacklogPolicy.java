@@ -0,0 +1,112 @@
+package com.lfh.custom.widget.toast;
+
+/**
+ * Controls how the queue of pending SuperToasts grows. The default policy keeps every
+ * SuperToast until it has been shown, which is the original behaviour. The policy is
+ * copied when it is set, changing it afterwards has no effect until it is set again.
+ *
+ * @see SuperToast#setBacklogPolicy(BacklogPolicy)
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class BacklogPolicy {
+
+    private int mMaxQueueDepth;
+    private ToastUtil.OverflowPolicy mOverflow = ToastUtil.OverflowPolicy.DROP_OLDEST;
+    private boolean mMergeDuplicates;
+    private long mTimeToLive;
+
+    /**
+     * Sets the maximum number of SuperToasts waiting behind the one being shown.
+     *
+     * @param maxQueueDepth int, 0 for an unbounded queue
+     */
+    public void setMaxQueueDepth(int maxQueueDepth) {
+        if (maxQueueDepth < 0) {
+            throw new IllegalArgumentException("maxQueueDepth must not be negative: " + maxQueueDepth);
+        }
+        this.mMaxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * Returns the maximum number of pending SuperToasts, 0 if unbounded.
+     *
+     * @return int
+     */
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth;
+    }
+
+    /**
+     * Sets what happens when the backlog is full, the same policies as for the queues of
+     * {@link ToastUtil}. {@link ToastUtil.OverflowPolicy#COALESCE} also merges duplicates
+     * as {@link #setMergeDuplicates(boolean)} does and otherwise drops the oldest.
+     *
+     * @param overflow {@link ToastUtil.OverflowPolicy}
+     */
+    public void setOverflow(ToastUtil.OverflowPolicy overflow) {
+        if (overflow == null) {
+            throw new IllegalArgumentException("overflow must not be null");
+        }
+        this.mOverflow = overflow;
+    }
+
+    /**
+     * Returns what happens when the backlog is full.
+     *
+     * @return {@link ToastUtil.OverflowPolicy}
+     */
+    public ToastUtil.OverflowPolicy getOverflow() {
+        return mOverflow;
+    }
+
+    /**
+     * Merges a SuperToast into a pending one with the same text and priority. The pending
+     * SuperToast then shows a count badge, e.g. "Network error ×12".
+     *
+     * @param mergeDuplicates boolean
+     */
+    public void setMergeDuplicates(boolean mergeDuplicates) {
+        this.mMergeDuplicates = mergeDuplicates;
+    }
+
+    /**
+     * Returns true if pending SuperToasts with the same text and priority are merged.
+     *
+     * @return boolean
+     */
+    public boolean isMergeDuplicates() {
+        return mMergeDuplicates;
+    }
+
+    /**
+     * Sets how long a SuperToast may wait in the queue before it is discarded unshown.
+     *
+     * @param timeToLive milliseconds, 0 to keep pending SuperToasts until they are shown
+     */
+    public void setTimeToLive(long timeToLive) {
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("timeToLive must not be negative: " + timeToLive);
+        }
+        this.mTimeToLive = timeToLive;
+    }
+
+    /**
+     * Returns how long a SuperToast may wait in the queue, 0 if forever.
+     *
+     * @return long milliseconds
+     */
+    public long getTimeToLive() {
+        return mTimeToLive;
+    }
+
+    /* Copy handed to the manager, later changes by the caller do not reach it */
+    BacklogPolicy copy() {
+        final BacklogPolicy copy = new BacklogPolicy();
+        copy.mMaxQueueDepth = mMaxQueueDepth;
+        copy.mOverflow = mOverflow;
+        copy.mMergeDuplicates = mMergeDuplicates;
+        copy.mTimeToLive = mTimeToLive;
+        return copy;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.lfh.custom.widget.toast;
+
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+
+/**
+ * Hosts {@link SuperToast}s as child views of a FrameLayout container instead of in a
+ * window of their own. The window gravity is applied as layout gravity and the offsets
+ * as margins, or as a translation on a centered axis, so a SuperToast lands where its
+ * window would. Views fade in since window animations do not apply to them.
+ */
+abstract class ContainerToastHost implements ToastHost {
+
+    /* Duration of the fade in */
+    private static final long FADE_IN_DURATION = 150;
+
+    /**
+     * Returns the container to add the view of the SuperToast to.
+     *
+     * @param superToast {@link SuperToast} about to be attached
+     * @param params     window params the SuperToast would be shown with
+     * @return {@link ViewGroup} or null if the SuperToast cannot be shown right now
+     */
+    abstract ViewGroup obtainContainer(SuperToast superToast, WindowManager.LayoutParams params);
+
+    @Override
+    public boolean attach(SuperToast superToast, WindowManager.LayoutParams params) {
+        final ViewGroup container = obtainContainer(superToast, params);
+        if (container == null) {
+            return false;
+        }
+
+        final View view = superToast.getBoundView();
+        view.setAlpha(0f);
+        container.addView(view, toFrameParams(params));
+        applyTranslation(view, params);
+        view.animate().alpha(1f).setDuration(FADE_IN_DURATION);
+        return true;
+    }
+
+    @Override
+    public void updateLayout(SuperToast superToast, WindowManager.LayoutParams params) {
+        final View view = superToast.getBoundView();
+        view.setLayoutParams(toFrameParams(params));
+        applyTranslation(view, params);
+    }
+
+    @Override
+    public void detach(SuperToast superToast) {
+        final View view = superToast.getBoundView();
+        view.animate().cancel();
+        final ViewParent parent = view.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(view);
+        }
+    }
+
+    @Override
+    public long getEnterDuration(SuperToast superToast) {
+        return FADE_IN_DURATION;
+    }
+
+    /* The view is removed at once, window exit animations do not apply to it */
+    @Override
+    public long getExitDuration(SuperToast superToast) {
+        return 0;
+    }
+
+    /* Window gravity and offsets expressed as margins inside a FrameLayout */
+    private static FrameLayout.LayoutParams toFrameParams(WindowManager.LayoutParams params) {
+        final FrameLayout.LayoutParams frameParams = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, params.gravity);
+        final int verticalGravity = params.gravity & Gravity.VERTICAL_GRAVITY_MASK;
+        if (verticalGravity == Gravity.BOTTOM) {
+            frameParams.bottomMargin = params.y;
+        } else if (verticalGravity == Gravity.TOP) {
+            frameParams.topMargin = params.y;
+        }
+        final int horizontalGravity = params.gravity & Gravity.HORIZONTAL_GRAVITY_MASK;
+        if (horizontalGravity == Gravity.RIGHT) {
+            frameParams.rightMargin = params.x;
+        } else if (horizontalGravity == Gravity.LEFT) {
+            frameParams.leftMargin = params.x;
+        }
+        return frameParams;
+    }
+
+    /* A window centered on an axis moves by the whole offset, a margin would only move the view by half of it */
+    void applyTranslation(View view, WindowManager.LayoutParams params) {
+        view.setTranslationY(isCenteredVertically(params.gravity) ? params.y : 0);
+        view.setTranslationX(isCenteredHorizontally(params.gravity) ? params.x : 0);
+    }
+
+    static boolean isCenteredVertically(int gravity) {
+        final int verticalGravity = gravity & Gravity.VERTICAL_GRAVITY_MASK;
+        return verticalGravity != Gravity.TOP && verticalGravity != Gravity.BOTTOM;
+    }
+
+    static boolean isCenteredHorizontally(int gravity) {
+        final int horizontalGravity = gravity & Gravity.HORIZONTAL_GRAVITY_MASK;
+        return horizontalGravity != Gravity.LEFT && horizontalGravity != Gravity.RIGHT;
+    }
+
+}
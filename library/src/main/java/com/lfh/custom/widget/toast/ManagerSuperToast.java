@@ -1,230 +1,1202 @@
 package com.lfh.custom.widget.toast;
 
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.graphics.PixelFormat;
 import android.os.Handler;
-import android.os.Message;
-import android.view.View;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.view.Gravity;
 import android.view.WindowManager;
 
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /* Manages the life of a SuperToast. Initially copied from the Crouton library */
-public class ManagerSuperToast extends Handler {
+public class ManagerSuperToast {
 
     @SuppressWarnings("UnusedDeclaration")
     private static final String TAG = "ManagerSuperToast";
 
-    /* Potential messages for the handler to send **/
-    private static final class Messages {
+    /* Maximum number of inflated SuperToast views kept for reuse */
+    private static final int MAX_POOLED_VIEWS = 3;
 
-        /* Hexadecimal numbers that represent acronyms for the operation **/
-        private static final int DISPLAY_SUPERTOAST = 0x445354;
-        private static final int ADD_SUPERTOAST = 0x415354;
-        private static final int REMOVE_SUPERTOAST = 0x525354;
+    /* Initial capacity of the pending queue */
+    private static final int INITIAL_QUEUE_CAPACITY = 11;
+
+    /* Number of distinct window layouts kept as params templates */
+    private static final int MAX_PARAMS_TEMPLATES = 4;
+
+    /* No update is scheduled */
+    private static final long NOT_SCHEDULED = Long.MAX_VALUE;
+
+    /* Higher priority first, then round by round so channels take turns, then first come first served */
+    private static final Comparator<SuperToast> PRIORITY_ORDER = new Comparator<SuperToast>() {
+
+        @Override
+        public int compare(SuperToast lhs, SuperToast rhs) {
+
+            if (lhs.getPriority() != rhs.getPriority()) {
+
+                return lhs.getPriority() > rhs.getPriority() ? -1 : 1;
+
+            }
+
+            if (lhs.getRound() != rhs.getRound()) {
+
+                return lhs.getRound() < rhs.getRound() ? -1 : 1;
+
+            }
+
+            return lhs.getSequence() < rhs.getSequence() ? -1
+                    : (lhs.getSequence() == rhs.getSequence() ? 0 : 1);
+
+        }
+
+    };
+
+    /* Default scheduler, runs on the main thread through the handler of the manager */
+    private static final class HandlerScheduler implements ToastScheduler {
+
+        private final Handler mHandler;
+
+        private HandlerScheduler(Handler handler) {
+
+            this.mHandler = handler;
+
+        }
+
+        @Override
+        public long now() {
+
+            return SystemClock.uptimeMillis();
+
+        }
+
+        @Override
+        public void scheduleAt(Runnable task, long uptimeMillis) {
+
+            mHandler.postAtTime(task, uptimeMillis);
+
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+
+            mHandler.removeCallbacks(task);
+
+        }
+
+        @Override
+        public void post(Runnable task) {
+
+            mHandler.post(task);
+
+        }
+
+        @Override
+        public boolean isSchedulerThread() {
+
+            return Looper.myLooper() == mHandler.getLooper();
+
+        }
+
+    }
+
+    /* Created on first use, a manager driven by another scheduler never touches the main looper */
+    private static final class MainThreadScheduler {
+
+        private static final ToastScheduler INSTANCE =
+                new HandlerScheduler(new Handler(Looper.getMainLooper()));
+
+    }
+
+    /* Lazy holder, the manager is created on first use without locking afterwards */
+    private static final class Holder {
+
+        private static final ManagerSuperToast INSTANCE = new ManagerSuperToast();
+
+    }
+
+    /* SuperToasts shown from other threads, drained on the main thread */
+    private final MpscQueue<SuperToast> mInbox = new MpscQueue<SuperToast>();
+
+    /* Clock and thread that own the SuperToast state, null for the main thread scheduler */
+    private volatile ToastScheduler mScheduler;
+
+    private final Runnable mUpdateTask = new Runnable() {
+
+        @Override
+        public void run() {
+
+            mScheduledTime = NOT_SCHEDULED;
+            update();
+
+        }
+
+    };
+
+    private final Runnable mDrainTask = new Runnable() {
+
+        @Override
+        public void run() {
+
+            drainInbox();
+
+        }
+
+    };
+
+    /* True while a drain task is pending */
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+
+    /* SuperToasts waiting to be shown, the showing SuperToasts are not part of the queue */
+    private final PriorityQueue<SuperToast> mQueue;
+
+    private final ToastViewPool mViewPool;
+
+    private BacklogPolicy mBacklogPolicy = new BacklogPolicy();
+
+    private SuperToast.Preemption mPreemption = SuperToast.Preemption.NONE;
+
+    private final ToastHost mWindowHost = new WindowToastHost();
+
+    private ActivityToastHost mActivityHost;
+
+    private PersistentWindowToastHost mPersistentHost;
+
+    private SuperToast.HostMode mHostMode = SuperToast.HostMode.WINDOW;
+
+    /* SuperToasts attached to a host, in slot order */
+    private final ArrayList<SuperToast> mShowing = new ArrayList<SuperToast>();
+
+    /* Number of SuperToasts that may be shown at once in stacked slots */
+    private int mMaxVisible = 1;
+
+    private long mNextSequence;
+
+    /* Round of the last SuperToast displayed */
+    private long mCurrentRound;
+
+    /* Round of the last SuperToast shown without a channel, those take turns with the channels as one */
+    private long mDirectLastRound;
+
+    /* Earliest time the next SuperToast may be attached, once the last exit animation finished */
+    private long mNextShowTime;
+
+    /* Time of the single pending update message */
+    private long mScheduledTime = NOT_SCHEDULED;
+
+    /* Shared by all SuperToasts, looked up once from the application context */
+    private volatile WindowManager mWindowManager;
+
+    /* Params templates keyed by gravity, animation and offsets, never modified once created */
+    private final WindowManager.LayoutParams[] mParamsTemplates =
+            new WindowManager.LayoutParams[MAX_PARAMS_TEMPLATES];
+
+    /* Template slot replaced when a new window layout is needed */
+    private int mNextParamsTemplate;
+
+    /* Number of window params created, stays the same while SuperToasts reuse templates */
+    private final AtomicInteger mParamsAllocations = new AtomicInteger();
+
+    /* Private method to create a new list if the manager is being initialized */
+    private ManagerSuperToast() {
+
+        mQueue = new PriorityQueue<SuperToast>(INITIAL_QUEUE_CAPACITY, PRIORITY_ORDER);
+        mViewPool = new ToastViewPool(MAX_POOLED_VIEWS);
+
+    }
+
+    /* Singleton method to ensure all SuperToasts are passed through the same manager */
+    protected static ManagerSuperToast getInstance() {
+
+        return Holder.INSTANCE;
+
+    }
+
+    /* True if called on the main thread that owns the SuperToast state */
+    boolean isMainThread() {
+
+        return getScheduler().isSchedulerThread();
+
+    }
+
+    /* Clock and scheduler shared with the ToastUtil dedup window */
+    protected ToastScheduler getScheduler() {
+
+        final ToastScheduler scheduler = mScheduler;
+
+        return scheduler != null ? scheduler : MainThreadScheduler.INSTANCE;
+
+    }
+
+    /* Replace the clock and scheduler, null restores the main thread scheduler */
+    protected void setScheduler(ToastScheduler scheduler) {
+
+        /* The field, not getScheduler(), so replacing the default does not create the main thread scheduler */
+        final ToastScheduler previous = mScheduler;
+
+        if (previous != null) {
+
+            previous.cancel(mUpdateTask);
+            previous.cancel(mDrainTask);
+
+        }
+
+        mScheduler = scheduler;
+        mScheduledTime = NOT_SCHEDULED;
+
+        /* Deadlines of the old clock mean nothing on the new one */
+        mNextShowTime = 0;
+
+        if (mDrainScheduled.get()) {
+
+            /* SuperToasts handed over to the old scheduler are drained by the new one */
+            getScheduler().post(mDrainTask);
+
+        }
+
+    }
+
+    /* Run on the main thread, immediately if already there */
+    private void runOnMainThread(Runnable runnable) {
+
+        if (isMainThread()) {
+
+            runnable.run();
+
+        } else {
+
+            getScheduler().post(runnable);
+
+        }
+
+    }
+
+    /* Show a SuperToast from any thread */
+    protected void enqueue(SuperToast superToast) {
+
+        if (isMainThread()) {
+
+            /* Keep the order of SuperToasts handed over from other threads */
+            drainInbox();
+            add(superToast);
+
+        } else {
+
+            mInbox.offer(superToast);
+
+            if (mDrainScheduled.compareAndSet(false, true)) {
+
+                getScheduler().post(mDrainTask);
+
+            }
+
+        }
+
+    }
+
+    /* Add every SuperToast handed over from other threads */
+    private void drainInbox() {
+
+        mDrainScheduled.set(false);
+
+        SuperToast superToast;
+
+        while ((superToast = mInbox.poll()) != null) {
+
+            add(superToast);
+
+        }
+
+        if (!mInbox.isEmpty() && mDrainScheduled.compareAndSet(false, true)) {
+
+            /* A producer is still linking its SuperToast, pick it up on the next drain */
+            getScheduler().post(mDrainTask);
+
+        }
+
+    }
+
+    /* Pool of inflated SuperToast views shared by all SuperToasts */
+    protected ToastViewPool getViewPool() {
+
+        return mViewPool;
+
+    }
+
+    /* The window manager all SuperToasts are attached to */
+    protected WindowManager getWindowManager(Context context) {
+
+        WindowManager windowManager = mWindowManager;
+
+        if (windowManager == null) {
+
+            windowManager = (WindowManager) context.getApplicationContext()
+                    .getSystemService(Context.WINDOW_SERVICE);
+            mWindowManager = windowManager;
+
+        }
+
+        return windowManager;
+
+    }
+
+    /* Shared params for a window layout, callers must never modify the returned params */
+    protected synchronized WindowManager.LayoutParams getParamsTemplate(int gravity,
+            int animation, int xOffset, int yOffset) {
+
+        for (WindowManager.LayoutParams template : mParamsTemplates) {
+
+            if (template != null && template.gravity == gravity
+                    && template.windowAnimations == animation
+                    && template.x == xOffset && template.y == yOffset) {
+
+                return template;
+
+            }
+
+        }
+
+        /* Replace the oldest template, SuperToasts still attached with it keep their reference */
+        final WindowManager.LayoutParams template = newParams(gravity, animation, xOffset, yOffset);
+        mParamsTemplates[mNextParamsTemplate] = template;
+        mNextParamsTemplate = (mNextParamsTemplate + 1) % MAX_PARAMS_TEMPLATES;
+
+        return template;
+
+    }
+
+    /* Params of a SuperToast window */
+    private WindowManager.LayoutParams newParams(int gravity, int animation,
+            int xOffset, int yOffset) {
+
+        mParamsAllocations.incrementAndGet();
+
+        final WindowManager.LayoutParams params = new WindowManager.LayoutParams();
+        params.height = WindowManager.LayoutParams.WRAP_CONTENT;
+        params.width = WindowManager.LayoutParams.WRAP_CONTENT;
+        params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                | WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON;
+        params.format = PixelFormat.TRANSLUCENT;
+        params.windowAnimations = animation;
+        params.type = WindowManager.LayoutParams.TYPE_TOAST;
+        params.gravity = gravity;
+        params.x = xOffset;
+        params.y = yOffset;
+
+        return params;
+
+    }
+
+    int getParamsAllocationCount() {
+
+        return mParamsAllocations.get();
+
+    }
+
+    /* Stacked SuperToasts move independently, so they get params of their own */
+    private WindowManager.LayoutParams ownParams(SuperToast superToast) {
+
+        WindowManager.LayoutParams params = superToast.getParams();
+
+        if (superToast.hasSharedParams()) {
+
+            params = newParams(params.gravity, params.windowAnimations, params.x, params.y);
+            superToast.setWindowManagerParams(params, false);
+
+        }
+
+        return params;
+
+    }
+
+    /* Resolve what the first SuperToast needs, the pooled view is inflated on the main thread */
+    protected void prewarm(final SuperToast prototype) {
+
+        final Context context = prototype.getContext().getApplicationContext();
+
+        getWindowManager(context);
+        getParamsTemplate(prototype.getGravity(), prototype.getAnimation(),
+                prototype.getXOffset(), prototype.getYOffset());
+
+        runOnMainThread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                mViewPool.prewarm(context);
+                mWindowHost.getEnterDuration(prototype);
+                mWindowHost.getExitDuration(prototype);
+
+            }
+
+        });
+
+    }
+
+    /* Policy applied to SuperToasts waiting behind the one being shown */
+    protected void setBacklogPolicy(BacklogPolicy backlogPolicy) {
+
+        /* Snapshot taken on the calling thread, the main thread only ever reads the copy */
+        final BacklogPolicy snapshot = backlogPolicy.copy();
+
+        runOnMainThread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                mBacklogPolicy = snapshot;
+
+            }
+
+        });
+
+    }
+
+    /* Number of slots in which SuperToasts are shown at once */
+    protected void setMaxVisible(final int maxVisible) {
+
+        runOnMainThread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                mMaxVisible = maxVisible;
+                update();
+
+            }
+
+        });
+
+    }
+
+    /* Where SuperToasts are attached, the Activity and persistent hosts are created on first use */
+    protected void setHostMode(final Application application, final SuperToast.HostMode hostMode) {
+
+        runOnMainThread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                if (hostMode == SuperToast.HostMode.ACTIVITY && mActivityHost == null) {
+
+                    mActivityHost = new ActivityToastHost(application);
+
+                } else if (hostMode == SuperToast.HostMode.PERSISTENT_WINDOW && mPersistentHost == null) {
+
+                    mPersistentHost = new PersistentWindowToastHost();
+
+                }
+
+                mHostMode = hostMode;
+
+            }
+
+        });
+
+    }
+
+    /* What happens to the current SuperToast when a higher priority one is added */
+    protected void setPreemption(final SuperToast.Preemption preemption) {
+
+        runOnMainThread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                mPreemption = preemption;
+
+            }
+
+        });
+
+    }
+
+    /* Add SuperToast to queue and try to show it, main thread only */
+    private void add(SuperToast superToast) {
+
+        superToast.setDismissed(false);
+        superToast.setEnqueueTime(getScheduler().now());
+
+        if (superToast.getToastId() != null && updateInPlace(superToast)) {
+
+            return;
+
+        }
+
+        if (mBacklogPolicy.isMergeDuplicates()
+                || mBacklogPolicy.getOverflow() == ToastUtil.OverflowPolicy.COALESCE) {
+
+            final SuperToast duplicate = findPendingDuplicate(superToast);
+
+            if (duplicate != null) {
+
+                /* Fold the SuperToast into the pending one and refresh its age */
+                duplicate.incrementDuplicateCount();
+                duplicate.setEnqueueTime(superToast.getEnqueueTime());
+
+                return;
+
+            }
+
+        }
+
+        if (!makeRoomInChannel(superToast.getChannel()) || !makeRoom()) {
+
+            return;
+
+        }
+
+        /* Add SuperToast to queue and try to show it */
+        assignRound(superToast);
+        superToast.setSequence(mNextSequence++);
+        mQueue.add(superToast);
+        ToastMetrics.getInstance().recordQueueDepth(mQueue.size());
+
+        final SuperToast preemptable = findPreemptable(superToast);
+
+        if (preemptable != null) {
+
+            preempt(preemptable);
+
+        }
+
+        this.update();
+
+        if (!superToast.isAttached()) {
+
+            /* The SuperToast has to wait, measure its message off the main thread meanwhile */
+            superToast.prefetchLineCount();
+
+        }
+
+    }
+
+    /* Apply a SuperToast to the showing or pending SuperToast with the same id, if any */
+    private boolean updateInPlace(SuperToast superToast) {
+
+        final String toastId = superToast.getToastId();
+
+        for (SuperToast showing : mShowing) {
+
+            if (toastId.equals(showing.getToastId())) {
+
+                showing.updateFrom(superToast);
+
+                if (mMaxVisible > 1) {
+
+                    /* The message may have changed height, move the slots above it */
+                    showing.measure();
+                    relayoutSlots();
+
+                }
+
+                /* Same window, only its layout is updated */
+                showing.getHost().updateLayout(showing, showing.getParams());
+
+                showing.setHideTime(Math.max(showing.getHideTime(),
+                        superToast.getEnqueueTime() + superToast.getDuration()));
+                scheduleUpdate();
+
+                return true;
+
+            }
+
+        }
+
+        for (SuperToast pending : mQueue) {
+
+            if (toastId.equals(pending.getToastId())) {
+
+                pending.updateFrom(superToast);
+
+                return true;
+
+            }
+
+        }
+
+        return false;
 
     }
 
-    private static ManagerSuperToast mManagerSuperToast;
+    /* Find a pending SuperToast with the same text and priority, a merge must not change when a SuperToast is shown */
+    private SuperToast findPendingDuplicate(SuperToast superToast) {
 
-    private final Queue<SuperToast> mQueue;
+        for (SuperToast pending : mQueue) {
 
-    /* Private method to create a new list if the manager is being initialized */
-    private ManagerSuperToast() {
+            if (pending.getPriority() == superToast.getPriority()
+                    && TextUtils.equals(pending.getText(), superToast.getText())) {
+
+                return pending;
+
+            }
+
+        }
 
-        mQueue = new LinkedBlockingQueue<SuperToast>();
+        return null;
 
     }
 
-    /* Singleton method to ensure all SuperToasts are passed through the same manager */
-    protected static synchronized ManagerSuperToast getInstance() {
+    /* A SuperToast goes one round after the last one of its channel but not before the current round, so a channel with a long backlog cannot hold back the others */
+    private void assignRound(SuperToast superToast) {
 
-        if (mManagerSuperToast != null) {
+        final ToastChannel channel = superToast.getChannel();
+        final long lastRound = channel != null ? channel.getLastRound() : mDirectLastRound;
+        final long round = Math.max(lastRound + 1, mCurrentRound);
 
-            return mManagerSuperToast;
+        superToast.setRound(round);
+
+        if (channel != null) {
+
+            channel.setLastRound(round);
 
         } else {
 
-            mManagerSuperToast = new ManagerSuperToast();
+            mDirectLastRound = round;
+
+        }
+
+    }
+
+    /* Apply the overflow policy of the channel if its whole backlog is already pending, false if the SuperToast to add is dropped instead */
+    private boolean makeRoomInChannel(ToastChannel channel) {
+
+        if (channel == null) {
+
+            return true;
+
+        }
+
+        int pending = 0;
+
+        for (SuperToast superToast : mQueue) {
+
+            if (superToast.getChannel() == channel) {
+
+                pending++;
 
-            return mManagerSuperToast;
+            }
+
+        }
+
+        if (pending < channel.getMaxBacklog()) {
+
+            return true;
+
+        }
+
+        if (channel.getOverflowPolicy() == ToastUtil.OverflowPolicy.DROP_NEWEST) {
+
+            return false;
 
         }
 
+        removeOldestPending(channel);
+
+        return true;
+
     }
 
-    /* Add SuperToast to queue and try to show it */
-    protected void add(SuperToast superToast) {
+    /* Apply the overflow policy if the queue is full, false if the SuperToast to add is dropped instead */
+    private boolean makeRoom() {
 
-        /* Add SuperToast to queue and try to show it */
-        mQueue.add(superToast);
-        this.showNextSuperToast();
+        final int maxQueueDepth = mBacklogPolicy.getMaxQueueDepth();
+
+        if (maxQueueDepth <= 0 || mQueue.size() < maxQueueDepth) {
+
+            return true;
+
+        }
+
+        if (mBacklogPolicy.getOverflow() == ToastUtil.OverflowPolicy.DROP_NEWEST) {
+
+            return false;
+
+        }
+
+        removeOldestPending(null);
+
+        return true;
+
+    }
+
+    /* Discard the pending SuperToast of the channel that was added first, of any channel if null */
+    private void removeOldestPending(ToastChannel channel) {
+
+        SuperToast oldest = null;
+
+        for (SuperToast pending : mQueue) {
+
+            if (channel != null && pending.getChannel() != channel) {
+
+                continue;
+
+            }
+
+            if (oldest == null || pending.getSequence() < oldest.getSequence()) {
+
+                oldest = pending;
+
+            }
+
+        }
+
+        if (oldest != null) {
+
+            mQueue.remove(oldest);
+
+        }
 
     }
 
-    /* Shows the next SuperToast in the list */
-    private void showNextSuperToast() {
+    /* Discard pending SuperToasts that waited longer than the time to live */
+    private void removeExpired(long now) {
 
-        if (mQueue.isEmpty()) {
+        final long timeToLive = mBacklogPolicy.getTimeToLive();
 
-            /* There is no SuperToast to display next */
+        if (timeToLive <= 0) {
 
             return;
 
         }
 
-        /* Get next SuperToast in the queue */
-        final SuperToast superToast = mQueue.peek();
+        final Iterator<SuperToast> iterator = mQueue.iterator();
+
+        while (iterator.hasNext()) {
+
+            if (now - iterator.next().getEnqueueTime() > timeToLive) {
+
+                iterator.remove();
+
+            }
+
+        }
+
+    }
+
+    /* The lowest priority showing SuperToast if all slots are taken and the SuperToast may interrupt it */
+    private SuperToast findPreemptable(SuperToast superToast) {
+
+        if (mPreemption == SuperToast.Preemption.NONE || mShowing.size() < mMaxVisible) {
+
+            return null;
+
+        }
+
+        SuperToast lowest = null;
+
+        for (SuperToast showing : mShowing) {
+
+            if (lowest == null || showing.getPriority() < lowest.getPriority()
+                    || (showing.getPriority() == lowest.getPriority()
+                    && showing.getSequence() > lowest.getSequence())) {
+
+                lowest = showing;
+
+            }
+
+        }
+
+        return lowest != null && superToast.getPriority() > lowest.getPriority() ? lowest : null;
+
+    }
+
+    /* Take a showing SuperToast off the screen to make room for a higher priority one */
+    private void preempt(SuperToast preempted) {
 
-        /* Show SuperToast if none are showing (not sure why this works but it does) */
-        if (!superToast.isShowing()) {
+        detach(preempted);
 
-            final Message message = obtainMessage(Messages.ADD_SUPERTOAST);
-            message.obj = superToast;
-            sendMessage(message);
+        if (mPreemption == SuperToast.Preemption.REQUEUE && makeRoom()) {
+
+            /* The SuperToast keeps its round and sequence so it is shown first within its priority, its time to live starts again */
+            preempted.setEnqueueTime(getScheduler().now());
+            mQueue.add(preempted);
 
         } else {
 
-            sendMessageDelayed(superToast, Messages.DISPLAY_SUPERTOAST,
-                    getDuration(superToast));
+            preempted.setDismissed(true);
+
+            if (preempted.getOnDismissListener() != null) {
+
+                preempted.getOnDismissListener().onDismiss(preempted.getView());
+
+            }
 
         }
 
+        recycleView(preempted);
+
     }
 
-    /* Show/dismiss a SuperToast after a specific duration */
-    private void sendMessageDelayed(SuperToast superToast, final int messageId, final long delay) {
+    /* Runs every transition that is due and schedules the next deadline */
+    private void update() {
+
+        final long now = getScheduler().now();
+
+        for (int i = mShowing.size() - 1; i >= 0; i--) {
+
+            final SuperToast superToast = mShowing.get(i);
+
+            if (superToast.getHideTime() <= now) {
+
+                hide(superToast, now);
+
+            }
+
+        }
+
+        if (now >= mNextShowTime) {
+
+            removeExpired(now);
+
+            while (mShowing.size() < mMaxVisible && !mQueue.isEmpty()) {
+
+                /* Get next SuperToast in the queue */
+                displaySuperToast(mQueue.poll(), now);
+
+            }
+
+        }
 
-        Message message = obtainMessage(messageId);
-        message.obj = superToast;
-        sendMessageDelayed(message, delay);
+        scheduleUpdate();
 
     }
 
-    /* Get duration and add one second to compensate for show/hide animations */
-    private long getDuration(SuperToast superToast) {
+    /* Keep exactly one pending message, at the earliest hide or show deadline */
+    private void scheduleUpdate() {
+
+        long deadline = NOT_SCHEDULED;
+
+        for (SuperToast superToast : mShowing) {
+
+            deadline = Math.min(deadline, superToast.getHideTime());
+
+        }
+
+        if (!mQueue.isEmpty() && mShowing.size() < mMaxVisible) {
+
+            deadline = Math.min(deadline, mNextShowTime);
+
+        }
+
+        if (deadline == mScheduledTime) {
+
+            return;
+
+        }
+
+        getScheduler().cancel(mUpdateTask);
+        mScheduledTime = deadline;
 
-        long duration = superToast.getDuration();
-        duration += 1000;
+        if (deadline != NOT_SCHEDULED) {
 
-        return duration;
+            getScheduler().scheduleAt(mUpdateTask, deadline);
+
+        }
 
     }
 
-    @Override
-    public void handleMessage(Message message) {
+    /* Offset each attached SuperToast from its gravity edge by the height of the slots before it */
+    private void relayoutSlots() {
 
-        final SuperToast superToast = (SuperToast)
-                message.obj;
+        final int count = mShowing.size();
 
-        switch (message.what) {
+        for (int i = 0; i < count; i++) {
 
-            case Messages.DISPLAY_SUPERTOAST:
+            final SuperToast superToast = mShowing.get(i);
 
-                showNextSuperToast();
+            final int y = superToast.getYOffset() + getSlotOffset(superToast, i);
 
-                break;
+            if (superToast.getParams().y != y) {
 
-            case Messages.ADD_SUPERTOAST:
+                final WindowManager.LayoutParams params = ownParams(superToast);
+                params.y = y;
+                superToast.getHost().updateLayout(superToast, params);
 
-                displaySuperToast(superToast);
+            }
 
-                break;
+        }
 
-            case Messages.REMOVE_SUPERTOAST:
+    }
 
-                removeSuperToast(superToast);
+    /* Sum of the heights of the SuperToasts in earlier slots stacked against the same edge */
+    private int getSlotOffset(SuperToast superToast, int slot) {
 
-                break;
+        final int verticalGravity = superToast.getGravity() & Gravity.VERTICAL_GRAVITY_MASK;
 
-            default: {
+        int offset = 0;
 
-                super.handleMessage(message);
+        for (int i = 0; i < slot; i++) {
 
-                break;
+            final SuperToast below = mShowing.get(i);
+
+            if ((below.getGravity() & Gravity.VERTICAL_GRAVITY_MASK) == verticalGravity) {
+
+                offset += below.getMeasuredHeight() + superToast.getStackSpacing();
 
             }
 
         }
 
+        return offset;
+
     }
 
     /* Displays a SuperToast */
-    private void displaySuperToast(SuperToast superToast) {
+    private void displaySuperToast(SuperToast superToast, long now) {
+
+        final ToastMetrics metrics = ToastMetrics.getInstance();
+
+        /* SuperToasts added from now on take their turn after this one */
+        mCurrentRound = Math.max(mCurrentRound, superToast.getRound());
 
-        if (superToast.isShowing()) {
+        /* Inflate and bind the view only now that the SuperToast is actually displayed */
+        final long bindStart = metrics.begin(ToastMetrics.SECTION_BIND);
+        superToast.bindView();
+        metrics.end(metrics.getBindTime(), bindStart);
 
-            /* If the SuperToast is already showing do not show again */
+        /* A single SuperToast is attached with the shared template, nothing is allocated */
+        WindowManager.LayoutParams params = getParamsTemplate(superToast.getGravity(),
+                superToast.getAnimation(), superToast.getXOffset(), superToast.getYOffset());
+        superToast.setWindowManagerParams(params, true);
+
+        if (mMaxVisible > 1) {
+
+            /* Measure the SuperToast so the slots above it can be offset by its height */
+            superToast.measure();
+            params = ownParams(superToast);
+            params.y = superToast.getYOffset() + getSlotOffset(superToast, mShowing.size());
+
+        }
+
+        final long addStart = metrics.begin(ToastMetrics.SECTION_ADD_VIEW);
+        final boolean attached = attach(superToast, params);
+        metrics.end(metrics.getAddViewTime(), addStart);
+
+        if (!attached) {
+
+            recycleView(superToast);
 
             return;
 
         }
 
-        final WindowManager windowManager = superToast
-                .getWindowManager();
+        metrics.recordDisplayLatency(superToast.getRequestTime());
+
+        superToast.setAttached(true);
+        mShowing.add(superToast);
+
+        /* The duration counts from the end of the enter animation of the host */
+        superToast.setHideTime(now + superToast.getHost().getEnterDuration(superToast)
+                + superToast.getDuration());
+
+    }
+
+    /* Attach to the host of the current mode, falling back to a window of its own */
+    private boolean attach(SuperToast superToast, WindowManager.LayoutParams params) {
+
+        final ToastHost preferred;
+
+        switch (mHostMode) {
+
+            case ACTIVITY:
+                preferred = mActivityHost;
+                break;
+
+            case PERSISTENT_WINDOW:
+                preferred = mPersistentHost;
+                break;
+
+            default:
+                preferred = null;
+                break;
+
+        }
+
+        if (preferred != null && preferred.attach(superToast, params)) {
+
+            superToast.setHost(preferred);
 
-        final View toastView = superToast.getView();
+            return true;
 
-        final WindowManager.LayoutParams params = superToast
-                .getWindowManagerParams();
+        }
+
+        if (mWindowHost.attach(superToast, params)) {
 
-        if(windowManager != null) {
+            superToast.setHost(mWindowHost);
 
-            windowManager.addView(toastView, params);
+            return true;
 
         }
 
-        sendMessageDelayed(superToast, Messages.REMOVE_SUPERTOAST,
-                superToast.getDuration() + 500);
+        return false;
 
     }
 
-    /* Hide and remove the SuperToast */
-    protected void removeSuperToast(SuperToast superToast) {
+    /* Drop the showing and pending SuperToasts of an Activity that is destroyed, main thread only */
+    protected void removeSuperToasts(Activity activity) {
+
+        drainInbox();
+
+        final long now = getScheduler().now();
 
-        final WindowManager windowManager = superToast
-                .getWindowManager();
+        for (int i = mShowing.size() - 1; i >= 0; i--) {
 
-        final View toastView = superToast.getView();
+            final SuperToast superToast = mShowing.get(i);
 
-        if (windowManager != null) {
+            if (superToast.getHostActivity() == activity || superToast.getContext() == activity) {
 
-            mQueue.poll();
+                hide(superToast, now);
+
+            }
+
+        }
 
-            windowManager.removeView(toastView);
+        final Iterator<SuperToast> iterator = mQueue.iterator();
 
-            sendMessageDelayed(superToast,
-                    Messages.DISPLAY_SUPERTOAST, 500);
+        while (iterator.hasNext()) {
 
-            if(superToast.getOnDismissListener() != null) {
+            if (iterator.next().getContext() == activity) {
 
-                superToast.getOnDismissListener().onDismiss(superToast.getView());
+                iterator.remove();
 
             }
 
         }
 
+        update();
+
     }
 
-    /* Cancels/removes all showing pending SuperToasts */
-    protected void cancelAllSuperToasts() {
+    /* Hide and remove the SuperToast from any thread */
+    protected void removeSuperToast(final SuperToast superToast) {
 
-        removeMessages(Messages.ADD_SUPERTOAST);
-        removeMessages(Messages.DISPLAY_SUPERTOAST);
-        removeMessages(Messages.REMOVE_SUPERTOAST);
+        runOnMainThread(new Runnable() {
 
-        for (SuperToast superToast : mQueue) {
+            @Override
+            public void run() {
+
+                drainInbox();
+                removeSuperToastNow(superToast);
+
+            }
+
+        });
+
+    }
+
+    private void removeSuperToastNow(SuperToast superToast) {
+
+        if (!superToast.isAttached()) {
+
+            /* The SuperToast is not showing, drop it if it is still pending */
+            mQueue.remove(superToast);
+            superToast.setDismissed(true);
+
+            return;
+
+        }
+
+        hide(superToast, getScheduler().now());
+        update();
+
+    }
+
+    /* Remove a showing SuperToast, the next one may be attached once its exit animation finished */
+    private void hide(SuperToast superToast, long now) {
+
+        detach(superToast);
+        superToast.setDismissed(true);
+
+        mNextShowTime = Math.max(mNextShowTime, now + superToast.getHost().getExitDuration(superToast));
+
+        if(superToast.getOnDismissListener() != null) {
+
+            superToast.getOnDismissListener().onDismiss(superToast.getView());
 
-            if (superToast.isShowing()) {
+        }
+
+        recycleView(superToast);
+
+    }
+
+    /* Remove the view of a showing SuperToast from its host and free its slot */
+    private void detach(SuperToast superToast) {
+
+        final ToastMetrics metrics = ToastMetrics.getInstance();
+
+        final long removeStart = metrics.begin(ToastMetrics.SECTION_REMOVE_VIEW);
+        superToast.getHost().detach(superToast);
+        metrics.end(metrics.getRemoveViewTime(), removeStart);
+        superToast.setAttached(false);
+
+        mShowing.remove(superToast);
+        relayoutSlots();
 
-                superToast.getWindowManager().removeView(
-                        superToast.getView());
+    }
+
+    /* Cancels/removes all showing pending SuperToasts from any thread */
+    protected void cancelAllSuperToasts() {
+
+        runOnMainThread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                cancelAllSuperToastsNow();
 
             }
 
+        });
+
+    }
+
+    private void cancelAllSuperToastsNow() {
+
+        int cancelled = mShowing.size() + mQueue.size();
+
+        /* SuperToasts handed over before the cancel are cancelled too */
+        while (mInbox.poll() != null) {
+
+            cancelled++;
+
+        }
+
+        ToastMetrics.getInstance().recordCancelled(cancelled);
+
+        getScheduler().cancel(mUpdateTask);
+        mScheduledTime = NOT_SCHEDULED;
+
+        for (SuperToast superToast : mShowing) {
+
+            superToast.getHost().detach(superToast);
+            superToast.setAttached(false);
+            superToast.setDismissed(true);
+
+            recycleView(superToast);
+
         }
 
+        mShowing.clear();
         mQueue.clear();
 
     }
 
-}
+    /* Return the view of a dismissed SuperToast to the pool */
+    private void recycleView(SuperToast superToast) {
+
+        mViewPool.release(superToast.detachView());
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.lfh.custom.widget.toast;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded multi-producer single-consumer queue used to hand SuperToasts from any
+ * thread to the main thread. {@link #offer(Object)} is a single atomic swap and never
+ * blocks or retries; {@link #poll()} and {@link #isEmpty()} may only be called by the
+ * consumer thread.
+ */
+final class MpscQueue<E> {
+
+    private static final class Node<E> {
+        private E mValue;
+        private volatile Node<E> mNext;
+
+        private Node(E value) {
+            this.mValue = value;
+        }
+    }
+
+    private final AtomicReference<Node<E>> mTail;
+    private Node<E> mHead;
+
+    MpscQueue() {
+        final Node<E> stub = new Node<E>(null);
+        mHead = stub;
+        mTail = new AtomicReference<Node<E>>(stub);
+    }
+
+    /**
+     * Adds an element, may be called from any thread.
+     *
+     * @param value element to add
+     */
+    void offer(E value) {
+        final Node<E> node = new Node<E>(value);
+        final Node<E> previous = mTail.getAndSet(node);
+        previous.mNext = node;
+    }
+
+    /**
+     * Removes the oldest element whose producer has finished linking it.
+     *
+     * @return the element or null if none is available
+     */
+    E poll() {
+        final Node<E> next = mHead.mNext;
+        if (next == null) {
+            return null;
+        }
+
+        final E value = next.mValue;
+        next.mValue = null;
+        mHead = next;
+        return value;
+    }
+
+    /**
+     * Returns true if no element has been offered since the last {@link #poll()}. An
+     * element that is still being linked by its producer counts as present.
+     *
+     * @return boolean
+     */
+    boolean isEmpty() {
+        return mHead == mTail.get();
+    }
+
+}
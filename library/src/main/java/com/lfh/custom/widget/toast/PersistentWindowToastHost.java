@@ -0,0 +1,144 @@
+package com.lfh.custom.widget.toast;
+
+import android.graphics.PixelFormat;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+
+/**
+ * Hosts {@link SuperToast}s inside one TYPE_TOAST window that wraps them at their gravity.
+ * The window is added with the first SuperToast and kept while SuperToasts follow each
+ * other, so only the first one pays for creating a window. It is removed once no
+ * SuperToast has been shown for {@link #IDLE_TIMEOUT} milliseconds. Offsets on an edge
+ * axis become margins inside the window, offsets on a centered axis move the window, so
+ * a SuperToast with another gravity or centered offset than the ones shown falls back to
+ * a window of its own.
+ */
+final class PersistentWindowToastHost extends ContainerToastHost {
+
+    /* Time the empty window is kept before it is removed */
+    static final long IDLE_TIMEOUT = 3000;
+
+    private final Runnable mRemoveTask = new Runnable() {
+
+        @Override
+        public void run() {
+            removeContainer();
+        }
+
+    };
+
+    /* Only used on the main thread */
+    private FrameLayout mContainer;
+    private WindowManager mWindowManager;
+    private WindowManager.LayoutParams mContainerParams;
+
+    @Override
+    ViewGroup obtainContainer(SuperToast superToast, WindowManager.LayoutParams params) {
+        ManagerSuperToast.getInstance().getScheduler().cancel(mRemoveTask);
+        if (mContainer != null) {
+            if (fits(params)) {
+                return mContainer;
+            }
+            if (mContainer.getChildCount() > 0) {
+                return null;
+            }
+
+            /* Nothing shown, move the empty window to the new SuperToast */
+            placeContainer(params);
+            mWindowManager.updateViewLayout(mContainer, mContainerParams);
+            return mContainer;
+        }
+
+        final WindowManager windowManager = superToast.getWindowManager();
+        if (windowManager == null) {
+            return null;
+        }
+
+        final FrameLayout container = new FrameLayout(superToast.getContext().getApplicationContext());
+        placeContainer(params);
+        windowManager.addView(container, mContainerParams);
+        mContainer = container;
+        mWindowManager = windowManager;
+        return container;
+    }
+
+    @Override
+    public void updateLayout(SuperToast superToast, WindowManager.LayoutParams params) {
+        super.updateLayout(superToast, params);
+
+        /* A stacked SuperToast moving on a centered axis takes the window with it */
+        if (mContainer != null && mContainer.getChildCount() == 1 && !fits(params)) {
+            placeContainer(params);
+            mWindowManager.updateViewLayout(mContainer, mContainerParams);
+        }
+    }
+
+    @Override
+    public void detach(SuperToast superToast) {
+        super.detach(superToast);
+        if (mContainer != null && mContainer.getChildCount() == 0) {
+            final ToastScheduler scheduler = ManagerSuperToast.getInstance().getScheduler();
+            scheduler.scheduleAt(mRemoveTask, scheduler.now() + IDLE_TIMEOUT);
+        }
+    }
+
+    /* The window carries the offsets on centered axes, the views must not move again */
+    @Override
+    void applyTranslation(View view, WindowManager.LayoutParams params) {
+        view.setTranslationX(0);
+        view.setTranslationY(0);
+    }
+
+    /* Params of the container window, null while there is none */
+    WindowManager.LayoutParams getContainerParams() {
+        return mContainerParams;
+    }
+
+    private void removeContainer() {
+        if (mContainer == null || mContainer.getChildCount() > 0) {
+            return;
+        }
+
+        mWindowManager.removeView(mContainer);
+        mContainer = null;
+        mWindowManager = null;
+        mContainerParams = null;
+    }
+
+    /* Same gravity and the same offsets on the centered axes as the window */
+    private boolean fits(WindowManager.LayoutParams params) {
+        return params.gravity == mContainerParams.gravity
+                && centeredX(params) == mContainerParams.x
+                && centeredY(params) == mContainerParams.y;
+    }
+
+    /*
+     * Wraps the SuperToasts at their gravity like the window of a single SuperToast, but
+     * without window animations since the views fade in. Neither focusable nor touchable,
+     * and unlike a SuperToast window it does not keep the screen on while it lingers.
+     */
+    private void placeContainer(WindowManager.LayoutParams params) {
+        final WindowManager.LayoutParams containerParams = new WindowManager.LayoutParams();
+        containerParams.height = WindowManager.LayoutParams.WRAP_CONTENT;
+        containerParams.width = WindowManager.LayoutParams.WRAP_CONTENT;
+        containerParams.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+        containerParams.format = PixelFormat.TRANSLUCENT;
+        containerParams.type = WindowManager.LayoutParams.TYPE_TOAST;
+        containerParams.gravity = params.gravity;
+        containerParams.x = centeredX(params);
+        containerParams.y = centeredY(params);
+        mContainerParams = containerParams;
+    }
+
+    private static int centeredX(WindowManager.LayoutParams params) {
+        return isCenteredHorizontally(params.gravity) ? params.x : 0;
+    }
+
+    private static int centeredY(WindowManager.LayoutParams params) {
+        return isCenteredVertically(params.gravity) ? params.y : 0;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.support.v4.content.ContextCompat;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+/**
+ * Process-wide cache of the resources every SuperToast resolves: icon and background
+ * drawables are kept as {@link Drawable.ConstantState}s, dimensions as pixel sizes and
+ * message strings as resolved for the current locale. Resources are always resolved
+ * against the application context and the cache is cleared when the configuration,
+ * including the locale, changes.
+ */
+@SuppressWarnings({"UnusedDeclaration", "deprecation"})
+public final class ResourceCache implements ComponentCallbacks {
+
+    private static final int NOT_CACHED = Integer.MIN_VALUE;
+
+    private static final class Holder {
+        private static final ResourceCache INSTANCE = new ResourceCache();
+    }
+
+    private final SparseArray<Drawable.ConstantState> mDrawables = new SparseArray<Drawable.ConstantState>();
+    private final SparseIntArray mDimensions = new SparseIntArray();
+    private final SparseArray<String> mStrings = new SparseArray<String>();
+    private boolean mRegistered;
+    private int mHitCount;
+    private int mMissCount;
+
+    private ResourceCache() {
+    }
+
+    static ResourceCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns a new drawable for the resource id, sharing its constant state with
+     * previously resolved drawables.
+     *
+     * @param context    {@link Context}
+     * @param drawableId drawable resource id
+     * @return {@link Drawable}
+     */
+    synchronized Drawable getDrawable(Context context, int drawableId) {
+        final Context applicationContext = register(context);
+        final Resources resources = applicationContext.getResources();
+
+        final Drawable.ConstantState constantState = mDrawables.get(drawableId);
+        if (constantState != null) {
+            mHitCount++;
+            return constantState.newDrawable(resources);
+        }
+
+        mMissCount++;
+        Drawable drawable = ContextCompat.getDrawable(applicationContext, drawableId);
+        if (drawable == null) {
+            drawable = resources.getDrawable(drawableId);
+        }
+        if (drawable != null && drawable.getConstantState() != null) {
+            mDrawables.put(drawableId, drawable.getConstantState());
+        }
+        return drawable;
+    }
+
+    /**
+     * Returns the dimension in pixels as {@link Resources#getDimensionPixelSize(int)}.
+     *
+     * @param context     {@link Context}
+     * @param dimensionId dimension resource id
+     * @return int
+     */
+    synchronized int getDimensionPixelSize(Context context, int dimensionId) {
+        final Context applicationContext = register(context);
+
+        int size = mDimensions.get(dimensionId, NOT_CACHED);
+        if (size != NOT_CACHED) {
+            mHitCount++;
+            return size;
+        }
+
+        mMissCount++;
+        size = applicationContext.getResources().getDimensionPixelSize(dimensionId);
+        mDimensions.put(dimensionId, size);
+        return size;
+    }
+
+    /**
+     * Returns the string as {@link Resources#getString(int)} for the current locale.
+     *
+     * @param context  {@link Context}
+     * @param stringId string resource id
+     * @return String
+     */
+    synchronized String getString(Context context, int stringId) {
+        final Context applicationContext = register(context);
+
+        String string = mStrings.get(stringId);
+        if (string != null) {
+            mHitCount++;
+            return string;
+        }
+
+        mMissCount++;
+        string = applicationContext.getResources().getString(stringId);
+        mStrings.put(stringId, string);
+        return string;
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return int
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of lookups that had to resolve the resource.
+     *
+     * @return int
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the share of lookups served from the cache.
+     *
+     * @return float between 0 and 1
+     */
+    public synchronized float getHitRate() {
+        final int total = mHitCount + mMissCount;
+        return total == 0 ? 0f : (float) mHitCount / total;
+    }
+
+    /**
+     * Drops every cached resource.
+     */
+    public synchronized void clear() {
+        mDrawables.clear();
+        mDimensions.clear();
+        mStrings.clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        clear();
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    /* Listen for configuration changes of the application the first time it is seen */
+    private Context register(Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        if (!mRegistered) {
+            applicationContext.registerComponentCallbacks(this);
+            mRegistered = true;
+        }
+        return applicationContext;
+    }
+
+}
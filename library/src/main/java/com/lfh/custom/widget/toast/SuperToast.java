@@ -1,15 +1,14 @@
 package com.lfh.custom.widget.toast;
 
-import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
-import android.graphics.PixelFormat;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Parcelable;
-import android.support.v4.content.ContextCompat;
 import android.util.Log;
+import android.util.TypedValue;
 import android.view.Gravity;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.TextView;
@@ -59,6 +58,60 @@ public class SuperToast {
         public static final int EXTRA_LONG = (4500);
     }
 
+    /**
+     * Priorities for all types of SuperToasts. SuperToasts with a higher priority are
+     * shown first, SuperToasts with the same priority are shown in the order they were added.
+     */
+    public static class Priority {
+        public static final int LOW = (0);
+        public static final int NORMAL = (1);
+        public static final int HIGH = (2);
+        public static final int CRITICAL = (3);
+    }
+
+    /**
+     * What happens to a showing SuperToast when a SuperToast with a higher priority is shown.
+     */
+    public enum Preemption {
+        /**
+         * The showing SuperToast is not interrupted.
+         */
+        NONE,
+
+        /**
+         * The showing SuperToast is removed and shown again later. It is queued like a newly
+         * added SuperToast, so the maximum queue depth and time to live apply to it.
+         */
+        REQUEUE,
+
+        /**
+         * The showing SuperToast is removed and dismissed.
+         */
+        DROP
+    }
+
+    /**
+     * Where SuperToasts are shown.
+     */
+    public enum HostMode {
+        /**
+         * Each SuperToast is shown in a TYPE_TOAST window of its own.
+         */
+        WINDOW,
+
+        /**
+         * SuperToasts are shown inside the content view of the resumed Activity, or of the
+         * Activity they were created with.
+         */
+        ACTIVITY,
+
+        /**
+         * SuperToasts are shown inside one TYPE_TOAST window that stays attached while they
+         * follow each other and is removed after a few idle seconds.
+         */
+        PERSISTENT_WINDOW
+    }
+
     /**
      * Text sizes for all types of SuperToasts.
      */
@@ -123,56 +176,111 @@ public class SuperToast {
     private Context mContext;
     private int mGravity = Gravity.BOTTOM | Gravity.CENTER;
     private int mDuration = Duration.SHORT;
+    private int mPriority = Priority.NORMAL;
+    private String mToastId;
+    private long mSequence;
+    private ToastChannel mChannel;
+    private long mRound;
+    private boolean mAttached;
+    private long mHideTime;
+    private int mMeasuredHeight;
     private int mTypefaceStyle;
     private int mBackground;
+    private CharSequence mText;
+    private int mTextSize;
+    private int mTextColor;
+    private boolean mHasTextColor;
+    private int mIconResource;
+    private IconPosition mIconPosition;
+    private boolean mAdjustPadding;
+    private int mDuplicateCount = 1;
+    private long mEnqueueTime;
+    private long mRequestTime;
     private int mXOffset = 0;
     private int mYOffset = 0;
+    private int mBottomInset;
     private OnDismissListener mOnDismissListener;
     private TextView mMessageTextView;
-    private View mToastView;
-    private WindowManager mWindowManager;
+    /* Written on the main thread once the view is fully bound, read from any thread */
+    private volatile View mToastView;
+    private volatile boolean mViewExposed;
+    private volatile boolean mDismissed;
     private WindowManager.LayoutParams mWindowManagerParams;
+    private boolean mSharedWindowManagerParams;
+    private ToastHost mHost;
+    private Activity mHostActivity;
 
     /**
-     * Instantiates a new {@value #TAG}.
+     * Instantiates a new {@value #TAG}. Only the configuration is captured here, the view
+     * is inflated and bound when the {@value #TAG} is about to be displayed.
      *
      * @param context {@link Context}
      */
-    @SuppressLint("InflateParams")
     private SuperToast(Context context) {
         if (context == null) {
             throw new IllegalArgumentException(TAG + ERROR_CONTEXT_NULL);
         }
 
         this.mContext = context;
-        mYOffset = context.getResources().getDimensionPixelSize(R.dimen.super_toast_bottom_padding);
-        final LayoutInflater layoutInflater = LayoutInflater.from(context);
-        mToastView = layoutInflater.inflate(R.layout.super_toast_view, null);
-        mWindowManager = (WindowManager) context.getApplicationContext().getSystemService(Context.WINDOW_SERVICE);
-        mMessageTextView = (TextView) mToastView.findViewById(R.id.tv_toast_message);
+        mBottomInset = ResourceCache.getInstance().getDimensionPixelSize(context, R.dimen.super_toast_bottom_padding);
+        mYOffset = mBottomInset;
+    }
+
+    /**
+     * Inflates (or takes from the pool) the view of the {@value #TAG} and binds the
+     * captured configuration to it. Does nothing if the view is already bound. Main
+     * thread only.
+     */
+    void bindView() {
+        if (mToastView != null) {
+            return;
+        }
+
+        final View view = ManagerSuperToast.getInstance().getViewPool().acquire(mContext);
+        mMessageTextView = (TextView) view;
+        mMessageTextView.setText(getDisplayText());
+        if (mTextSize > 0) {
+            applyTextSize();
+        }
+        if (mHasTextColor) {
+            mMessageTextView.setTextColor(mTextColor);
+        }
+        if (mTypefaceStyle != 0) {
+            applyTypefaceStyle();
+        }
+        if (mIconPosition != null) {
+            applyIcon();
+        }
+        if (mBackground != 0) {
+            applyBackground();
+        }
+        if (mAdjustPadding) {
+            applyPadding();
+        }
+
+        /* Published last so other threads never see a partly bound view */
+        mToastView = view;
     }
 
     /**
      * Shows the {@value #TAG}. If another {@value #TAG} is showing than
      * this one will be added to a queue and shown when the previous {@value #TAG}
-     * is dismissed.
+     * is dismissed. May be called from any thread.
      */
     public void show() {
-        mWindowManagerParams = new WindowManager.LayoutParams();
-        mWindowManagerParams.height = WindowManager.LayoutParams.WRAP_CONTENT;
-        mWindowManagerParams.width = WindowManager.LayoutParams.WRAP_CONTENT;
-        mWindowManagerParams.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
-                | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
-                | WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON;
-        mWindowManagerParams.format = PixelFormat.TRANSLUCENT;
-        mWindowManagerParams.windowAnimations = getAnimation();
-        mWindowManagerParams.type = WindowManager.LayoutParams.TYPE_TOAST;
-        mWindowManagerParams.gravity = mGravity;
-        mWindowManagerParams.x = mXOffset;
-        mWindowManagerParams.y = mYOffset;
+        if (mRequestTime == 0) {
+            mRequestTime = ToastMetrics.getInstance().now();
+        }
 
-        ManagerSuperToast.getInstance().add(this);
+        ManagerSuperToast.getInstance().enqueue(this);
+    }
 
+    /* Measures the message on the measuring thread while the SuperToast waits, main thread only */
+    void prefetchLineCount() {
+        if (mAdjustPadding && mToastView == null && !hasHorizontalIcon()) {
+            TextMeasureCache.getInstance().prefetch(getDisplayText(), resolveTextSize(),
+                    mTypefaceStyle, resolveTextWidth());
+        }
     }
 
     /**
@@ -181,7 +289,10 @@ public class SuperToast {
      * @param text {@link CharSequence}
      */
     public void setText(CharSequence text) {
-        mMessageTextView.setText(text);
+        this.mText = text;
+        if (mMessageTextView != null) {
+            mMessageTextView.setText(getDisplayText());
+        }
     }
 
     /**
@@ -190,11 +301,66 @@ public class SuperToast {
      * @return {@link CharSequence}
      */
     public CharSequence getText() {
-        return mMessageTextView.getText();
+        return mText;
+    }
+
+    /**
+     * Returns how many SuperToasts with the same text were merged into this one.
+     *
+     * @return int, 1 if nothing was merged
+     */
+    public int getDuplicateCount() {
+        return mDuplicateCount;
+    }
+
+    void incrementDuplicateCount() {
+        mDuplicateCount++;
+        if (mMessageTextView != null) {
+            mMessageTextView.setText(getDisplayText());
+        }
+    }
+
+    /* The message text with a count badge appended when duplicates were merged */
+    private CharSequence getDisplayText() {
+        if (mDuplicateCount <= 1 || mText == null) {
+            return mText;
+        }
+        return mText + " \u00d7" + mDuplicateCount;
+    }
+
+    void setEnqueueTime(long enqueueTime) {
+        this.mEnqueueTime = enqueueTime;
+    }
+
+    long getEnqueueTime() {
+        return mEnqueueTime;
+    }
+
+    /* System.nanoTime() of the show request, 0 while metrics are disabled */
+    void setRequestTime(long requestTime) {
+        this.mRequestTime = requestTime;
+    }
+
+    long getRequestTime() {
+        return mRequestTime;
     }
 
+    /**
+     * Uses the multi-line vertical padding if the message wraps.
+     */
     public void setPadding() {
-        int lineCount = mMessageTextView.getLineCount();
+        this.mAdjustPadding = true;
+        if (mMessageTextView != null) {
+            applyPadding();
+        }
+    }
+
+    private void applyPadding() {
+        /* The view has not been laid out yet, so the line count comes from the measure cache */
+        final int width = ResourceCache.getInstance().getDimensionPixelSize(mContext, R.dimen.super_toast_width)
+                - mMessageTextView.getCompoundPaddingLeft() - mMessageTextView.getCompoundPaddingRight();
+        int lineCount = TextMeasureCache.getInstance().getLineCount(getDisplayText(),
+                mMessageTextView.getTextSize(), mTypefaceStyle, width);
 
         int leftPadding = 0;
         int rightPadding = 0;
@@ -210,8 +376,9 @@ public class SuperToast {
         int bottomPadding = mMessageTextView.getPaddingBottom();
 
         if (1 < lineCount) {
-            topPadding = dip2px(mContext, mContext.getResources().getDimension(R.dimen.super_toast_vertical_multi_line_padding));
-            bottomPadding = dip2px(mContext, mContext.getResources().getDimension(R.dimen.super_toast_vertical_multi_line_padding));
+            topPadding = ResourceCache.getInstance().getDimensionPixelSize(mContext,
+                    R.dimen.super_toast_vertical_multi_line_padding);
+            bottomPadding = topPadding;
         }
 
         mMessageTextView.setPadding(leftPadding, topPadding, rightPadding, bottomPadding);
@@ -220,6 +387,26 @@ public class SuperToast {
         }
     }
 
+    /* Text size in pixels as the bound textview will resolve it */
+    private float resolveTextSize() {
+        if (mTextSize > 0) {
+            return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, mTextSize,
+                    mContext.getResources().getDisplayMetrics());
+        }
+        return ResourceCache.getInstance().getDimensionPixelSize(mContext, R.dimen.super_toast_text_size);
+    }
+
+    /* Width available to the message of a SuperToast without a horizontal icon */
+    private int resolveTextWidth() {
+        final ResourceCache resourceCache = ResourceCache.getInstance();
+        return resourceCache.getDimensionPixelSize(mContext, R.dimen.super_toast_width)
+                - 2 * resourceCache.getDimensionPixelSize(mContext, R.dimen.super_toast_horizontal_padding);
+    }
+
+    private boolean hasHorizontalIcon() {
+        return mIconPosition == IconPosition.LEFT || mIconPosition == IconPosition.RIGHT;
+    }
+
     /**
      * Sets the message typeface style of the {@value #TAG}.
      *
@@ -227,7 +414,13 @@ public class SuperToast {
      */
     public void setTypefaceStyle(int typeface) {
         mTypefaceStyle = typeface;
-        mMessageTextView.setTypeface(mMessageTextView.getTypeface(), typeface);
+        if (mMessageTextView != null) {
+            applyTypefaceStyle();
+        }
+    }
+
+    private void applyTypefaceStyle() {
+        mMessageTextView.setTypeface(mMessageTextView.getTypeface(), mTypefaceStyle);
     }
 
     /**
@@ -245,7 +438,11 @@ public class SuperToast {
      * @param textColor {@link android.graphics.Color}
      */
     public void setTextColor(int textColor) {
-        mMessageTextView.setTextColor(textColor);
+        this.mTextColor = textColor;
+        this.mHasTextColor = true;
+        if (mMessageTextView != null) {
+            mMessageTextView.setTextColor(textColor);
+        }
     }
 
     /**
@@ -254,7 +451,11 @@ public class SuperToast {
      * @return int
      */
     public int getTextColor() {
-        return mMessageTextView.getCurrentTextColor();
+        if (mHasTextColor) {
+            return mTextColor;
+        }
+        final TextView textView = getTextView();
+        return textView != null ? textView.getCurrentTextColor() : mTextColor;
     }
 
     /**
@@ -263,7 +464,14 @@ public class SuperToast {
      * @param textSize int
      */
     public void setTextSize(int textSize) {
-        mMessageTextView.setTextSize(textSize);
+        this.mTextSize = textSize;
+        if (mMessageTextView != null) {
+            applyTextSize();
+        }
+    }
+
+    private void applyTextSize() {
+        mMessageTextView.setTextSize(mTextSize);
     }
 
     /**
@@ -272,7 +480,8 @@ public class SuperToast {
      * @return float
      */
     public float getTextSize() {
-        return mMessageTextView.getTextSize();
+        final TextView textView = getTextView();
+        return textView != null ? textView.getTextSize() : resolveTextSize();
     }
 
     /**
@@ -298,6 +507,95 @@ public class SuperToast {
         return this.mDuration;
     }
 
+    /**
+     * Sets the id of the {@value #TAG}. Showing a {@value #TAG} with the id of a showing or
+     * queued one updates the text and icon of that {@value #TAG} in place, e.g. for a progress
+     * or retry counter, and the new {@value #TAG} itself is never displayed. A showing
+     * {@value #TAG} is kept on screen for at least the duration of the update.
+     *
+     * @param toastId id or null for none
+     */
+    public void setToastId(String toastId) {
+        this.mToastId = toastId;
+    }
+
+    /**
+     * Returns the id of the {@value #TAG}.
+     *
+     * @return String or null
+     */
+    public String getToastId() {
+        return this.mToastId;
+    }
+
+    /* Takes over the text and icon of a newer SuperToast with the same id */
+    void updateFrom(SuperToast source) {
+        this.mText = source.mText;
+        this.mIconResource = source.mIconResource;
+        this.mIconPosition = source.mIconPosition;
+        if (mMessageTextView == null) {
+            return;
+        }
+
+        mMessageTextView.setText(getDisplayText());
+        if (mIconPosition != null) {
+            applyIcon();
+        } else {
+            mMessageTextView.setCompoundDrawablesWithIntrinsicBounds(null, null, null, null);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                mMessageTextView.setCompoundDrawablesRelativeWithIntrinsicBounds(null, null, null, null);
+            }
+        }
+        if (mAdjustPadding) {
+            applyPadding();
+        }
+    }
+
+    /**
+     * Sets the priority of the {@value #TAG}.
+     *
+     * @param priority {@link com.lfh.custom.widget.toast.SuperToast.Priority}
+     */
+    public void setPriority(int priority) {
+        this.mPriority = priority;
+    }
+
+    /**
+     * Returns the priority of the {@value #TAG}.
+     *
+     * @return int
+     */
+    public int getPriority() {
+        return this.mPriority;
+    }
+
+    /* Order in which the SuperToast was added to the queue */
+    void setSequence(long sequence) {
+        this.mSequence = sequence;
+    }
+
+    long getSequence() {
+        return mSequence;
+    }
+
+    /* Channel the SuperToast was posted on through ToastUtil, null if it was shown directly */
+    void setChannel(ToastChannel channel) {
+        this.mChannel = channel;
+    }
+
+    ToastChannel getChannel() {
+        return mChannel;
+    }
+
+    /* Round in which the SuperToast gets its turn, channels take turns round by round */
+    void setRound(long round) {
+        this.mRound = round;
+    }
+
+    long getRound() {
+        return mRound;
+    }
+
     /**
      * Sets an icon resource to the {@value #TAG} with a specified position.
      *
@@ -305,10 +603,17 @@ public class SuperToast {
      * @param iconPosition {@link IconPosition}
      */
     public void setIcon(int iconResource, IconPosition iconPosition) {
-        Drawable drawable = ContextCompat.getDrawable(mContext, iconResource);
-        if (drawable == null) {
-            drawable = mContext.getResources().getDrawable(iconResource);
+        this.mIconResource = iconResource;
+        this.mIconPosition = iconPosition;
+        if (mMessageTextView != null) {
+            applyIcon();
         }
+    }
+
+    private void applyIcon() {
+        final int iconResource = mIconResource;
+        final IconPosition iconPosition = mIconPosition;
+        final Drawable drawable = ResourceCache.getInstance().getDrawable(mContext, iconResource);
         if (iconPosition == IconPosition.BOTTOM) {
             mMessageTextView.setCompoundDrawablesWithIntrinsicBounds(null, null,
                     null, drawable);
@@ -336,7 +641,19 @@ public class SuperToast {
      */
     public void setBackground(int background) {
         this.mBackground = background;
-        mMessageTextView.setBackgroundResource(background);
+        if (mMessageTextView != null) {
+            applyBackground();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void applyBackground() {
+        final Drawable drawable = ResourceCache.getInstance().getDrawable(mContext, mBackground);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mMessageTextView.setBackground(drawable);
+        } else {
+            mMessageTextView.setBackgroundDrawable(drawable);
+        }
     }
 
     /**
@@ -361,6 +678,36 @@ public class SuperToast {
         this.mYOffset = yOffset;
     }
 
+    /**
+     * Returns the gravity of the {@value #TAG}.
+     *
+     * @return {@link Gravity} int
+     */
+    public int getGravity() {
+        return this.mGravity;
+    }
+
+    int getXOffset() {
+        return mXOffset;
+    }
+
+    /*
+     * Y offset of the window before any stacking offset. The message view is added to the
+     * window manager directly, so the bottom padding of the wrapping layout it used to have
+     * is applied here: a bottom aligned message is raised by the whole inset, a vertically
+     * centered one by half of it, a top aligned one keeps its place.
+     */
+    int getYOffset() {
+        final int verticalGravity = mGravity & Gravity.VERTICAL_GRAVITY_MASK;
+        if (verticalGravity == Gravity.BOTTOM) {
+            return mYOffset + mBottomInset;
+        }
+        if (verticalGravity == Gravity.TOP) {
+            return mYOffset;
+        }
+        return mYOffset - mBottomInset / 2;
+    }
+
     /**
      * Sets the show/hide animations of the {@value #TAG}.
      *
@@ -404,23 +751,110 @@ public class SuperToast {
     }
 
     /**
-     * Returns the {@value #TAG} message textview.
+     * Returns the {@value #TAG} message textview, see {@link #getView()}.
      *
-     * @return {@link TextView}
+     * @return {@link TextView} or null
      */
     public TextView getTextView() {
-        return mMessageTextView;
+        return (TextView) getView();
     }
 
     /**
-     * Returns the {@value #TAG} view.
+     * Returns the {@value #TAG} view, which is the message textview. If the {@value #TAG}
+     * has not been displayed yet, the view is bound on the main thread and used when the
+     * {@value #TAG} is displayed; on other threads null is returned until then. After
+     * the {@value #TAG} is dismissed the view it was shown with is returned. A view that
+     * was returned here is never reused for another {@value #TAG}.
      *
-     * @return {@link View}
+     * @return {@link View} or null
      */
     public View getView() {
+        View view = mToastView;
+        if (view == null && !mDismissed && ManagerSuperToast.getInstance().isMainThread()) {
+            bindView();
+            view = mToastView;
+        }
+        if (view != null) {
+            mViewExposed = true;
+        }
+        return view;
+    }
+
+    /* The bound view for the manager and hosts, it stays eligible for the pool */
+    View getBoundView() {
         return mToastView;
     }
 
+    /* Measures the bound view so the manager can stack other SuperToasts above it */
+    void measure() {
+        final int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        mToastView.measure(unspecified, unspecified);
+        mMeasuredHeight = mToastView.getMeasuredHeight();
+    }
+
+    int getMeasuredHeight() {
+        return mMeasuredHeight;
+    }
+
+    /* Gap between stacked SuperToasts */
+    int getStackSpacing() {
+        return ResourceCache.getInstance().getDimensionPixelSize(mContext, R.dimen.super_toast_stack_spacing);
+    }
+
+    /* Time at which the manager removes the showing SuperToast */
+    void setHideTime(long hideTime) {
+        this.mHideTime = hideTime;
+    }
+
+    long getHideTime() {
+        return mHideTime;
+    }
+
+    Context getContext() {
+        return mContext;
+    }
+
+    /* True while the view is added to the window manager */
+    void setAttached(boolean attached) {
+        this.mAttached = attached;
+    }
+
+    boolean isAttached() {
+        return mAttached;
+    }
+
+    /* Set by the manager once the SuperToast is dismissed, cleared when it is shown again */
+    void setDismissed(boolean dismissed) {
+        this.mDismissed = dismissed;
+    }
+
+    /**
+     * Returns true if the view of the {@value #TAG} has been inflated.
+     *
+     * @return boolean
+     */
+    boolean hasView() {
+        return mToastView != null;
+    }
+
+    /**
+     * Releases the view of a dismissed {@value #TAG} so it can be pooled. A view handed out
+     * by {@link #getView()} may still be used by the caller, so it stays with this
+     * {@value #TAG} and is not released.
+     *
+     * @return {@link View} previously used by this {@value #TAG} or null
+     */
+    View detachView() {
+        if (mViewExposed) {
+            return null;
+        }
+
+        final View view = mToastView;
+        mToastView = null;
+        mMessageTextView = null;
+        return view;
+    }
+
     /**
      * Returns true if the {@value #TAG} is showing.
      *
@@ -436,22 +870,63 @@ public class SuperToast {
      * @return {@link WindowManager}
      */
     public WindowManager getWindowManager() {
-        return mWindowManager;
+        return ManagerSuperToast.getInstance().getWindowManager(mContext);
     }
 
     /**
-     * Returns the window manager layout params of the {@value #TAG}.
+     * Returns a copy of the window manager layout params of the {@value #TAG}. Until the
+     * {@value #TAG} is displayed these are the params it will be attached with. Changing
+     * the copy has no effect, use {@link #setGravity(int, int, int)} instead.
      *
      * @return {@link WindowManager.LayoutParams}
      */
     public WindowManager.LayoutParams getWindowManagerParams() {
+        final WindowManager.LayoutParams params = new WindowManager.LayoutParams();
+        params.copyFrom(getParams());
+        return params;
+    }
+
+    /* Params the view is attached with, shared ones are a template of the manager and are never modified */
+    WindowManager.LayoutParams getParams() {
+        if (mWindowManagerParams == null) {
+            return ManagerSuperToast.getInstance().getParamsTemplate(mGravity, getAnimation(),
+                    mXOffset, getYOffset());
+        }
         return mWindowManagerParams;
     }
 
+    /* Params the manager attached the view with, shared ones are a template of the manager */
+    void setWindowManagerParams(WindowManager.LayoutParams params, boolean shared) {
+        this.mWindowManagerParams = params;
+        this.mSharedWindowManagerParams = shared;
+    }
+
+    boolean hasSharedParams() {
+        return mSharedWindowManagerParams;
+    }
+
+    /* Host the view is attached to, set by the manager when displayed */
+    void setHost(ToastHost host) {
+        this.mHost = host;
+    }
+
+    ToastHost getHost() {
+        return mHost;
+    }
+
+    /* Activity whose content view shows the SuperToast, only while attached */
+    void setHostActivity(Activity hostActivity) {
+        this.mHostActivity = hostActivity;
+    }
+
+    Activity getHostActivity() {
+        return mHostActivity;
+    }
+
     /**
-     * Private method used to return a specific animation for a animations enum
+     * Returns the window animation style for the animations enum
      */
-    private int getAnimation() {
+    int getAnimation() {
         if (mAnimations == Animations.FLY_IN) {
             return android.R.style.Animation_Translucent;
         } else if (mAnimations == Animations.SCALE) {
@@ -509,7 +984,118 @@ public class SuperToast {
         ManagerSuperToast.getInstance().cancelAllSuperToasts();
     }
 
-    private int dip2px(Context context, float dipValue) {
-        return (int) (0.5F + dipValue * context.getResources().getDisplayMetrics().density);
+    /**
+     * Sets the policy applied to {@value #TAG}s waiting to be shown: maximum queue depth,
+     * overflow behaviour, merging of duplicates and time to live. The policy is copied,
+     * set it again to apply later changes.
+     *
+     * @param backlogPolicy {@link BacklogPolicy}
+     */
+    public static void setBacklogPolicy(BacklogPolicy backlogPolicy) {
+        if (backlogPolicy == null) {
+            throw new IllegalArgumentException(TAG + " - You cannot use a null backlog policy.");
+        }
+        ManagerSuperToast.getInstance().setBacklogPolicy(backlogPolicy);
+    }
+
+    /**
+     * Sets what happens to a showing {@value #TAG} when one with a higher priority is shown.
+     *
+     * @param preemption {@link Preemption}
+     */
+    public static void setPreemption(Preemption preemption) {
+        if (preemption == null) {
+            throw new IllegalArgumentException(TAG + " - You cannot use a null preemption.");
+        }
+        ManagerSuperToast.getInstance().setPreemption(preemption);
+    }
+
+    /**
+     * Sets how many {@value #TAG}s may be shown at once. With more than one, {@value #TAG}s
+     * are stacked in slots offset from their gravity edge and move down as others expire.
+     *
+     * @param maxVisible int, 1 to show one {@value #TAG} at a time
+     */
+    public static void setMaxVisible(int maxVisible) {
+        if (maxVisible < 1) {
+            throw new IllegalArgumentException(TAG + " - You must allow at least one visible SuperToast.");
+        }
+        ManagerSuperToast.getInstance().setMaxVisible(maxVisible);
+    }
+
+    /**
+     * Sets where {@value #TAG}s are shown. {@link HostMode#ACTIVITY} shows them inside the
+     * content view of an Activity and drops those of a destroyed Activity, a {@value #TAG}
+     * is shown in a window if no Activity is resumed. {@link HostMode#PERSISTENT_WINDOW}
+     * reuses one window for consecutive {@value #TAG}s instead of adding one for each, the
+     * window animations of the {@value #TAG}s are replaced by a fade in.
+     *
+     * @param context  {@link Context} of the application
+     * @param hostMode {@link HostMode}
+     */
+    public static void setHostMode(Context context, HostMode hostMode) {
+        if (context == null) {
+            throw new IllegalArgumentException(TAG + ERROR_CONTEXT_NULL);
+        }
+        if (hostMode == null) {
+            throw new IllegalArgumentException(TAG + " - You cannot use a null host mode.");
+        }
+        ManagerSuperToast.getInstance().setHostMode((Application) context.getApplicationContext(), hostMode);
+    }
+
+    /**
+     * Replaces the clock and scheduler that drive all {@value #TAG}s and the dedup window of
+     * {@link ToastUtil}, e.g. with a virtual clock to simulate {@value #TAG}s without waiting
+     * in real time. Should only be called
+     * while no {@value #TAG}s are showing or queued.
+     *
+     * @param scheduler {@link ToastScheduler} or null for the default main thread scheduler
+     */
+    public static void setScheduler(ToastScheduler scheduler) {
+        ManagerSuperToast.getInstance().setScheduler(scheduler);
+    }
+
+    /**
+     * Prepares everything the first {@value #TAG} needs: the manager, the window manager,
+     * the default window params, the shared resources, a pooled view and the text measuring
+     * thread. Call it from Application.onCreate or an idle handler so the first {@value #TAG}
+     * does not pay for them. May be called from any thread, the view is inflated on the
+     * main thread.
+     *
+     * @param context {@link Context}
+     */
+    public static void prewarm(Context context) {
+        final SuperToast prototype = new SuperToast(context.getApplicationContext());
+
+        final ResourceCache resourceCache = ResourceCache.getInstance();
+        resourceCache.getDimensionPixelSize(context, R.dimen.super_toast_width);
+        resourceCache.getDimensionPixelSize(context, R.dimen.super_toast_horizontal_padding);
+        resourceCache.getDimensionPixelSize(context, R.dimen.super_toast_text_size);
+        resourceCache.getDimensionPixelSize(context, R.dimen.super_toast_vertical_multi_line_padding);
+        resourceCache.getDimensionPixelSize(context, R.dimen.super_toast_stack_spacing);
+        resourceCache.getDrawable(context, R.drawable.super_toast_bg_shape);
+
+        TextMeasureCache.getInstance().prewarm();
+        ManagerSuperToast.getInstance().prewarm(prototype);
+    }
+
+    /**
+     * Returns the pool of inflated views shared by all {@value #TAG}s, e.g. to read
+     * its hit/miss counters.
+     *
+     * @return {@link ToastViewPool}
+     */
+    public static ToastViewPool getViewPool() {
+        return ManagerSuperToast.getInstance().getViewPool();
+    }
+
+    /**
+     * Returns the cache of resolved drawables and dimensions shared by all {@value #TAG}s,
+     * e.g. to read its hit rate.
+     *
+     * @return {@link ResourceCache}
+     */
+    public static ResourceCache getResourceCache() {
+        return ResourceCache.getInstance();
     }
 }
\ No newline at end of file
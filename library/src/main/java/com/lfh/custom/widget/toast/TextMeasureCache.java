@@ -0,0 +1,153 @@
+package com.lfh.custom.widget.toast;
+
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide LRU cache of the line count of SuperToast messages, keyed by text, text
+ * size, typeface style and available width. Messages are measured with a
+ * {@link StaticLayout} on a background thread while a SuperToast waits in the queue, so
+ * repeated messages never measure on the main thread and the multi-line padding is known
+ * before the SuperToast is laid out. Measuring is requested from the main thread only,
+ * {@link SuperToast#show()} itself never takes a lock.
+ */
+final class TextMeasureCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    /* The measuring thread exits when it has been idle for this long */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final class Holder {
+        private static final TextMeasureCache INSTANCE = new TextMeasureCache();
+    }
+
+    private static final class Key {
+        private final String mText;
+        private final float mTextSize;
+        private final int mTypefaceStyle;
+        private final int mWidth;
+
+        private Key(CharSequence text, float textSize, int typefaceStyle, int width) {
+            this.mText = text.toString();
+            this.mTextSize = textSize;
+            this.mTypefaceStyle = typefaceStyle;
+            this.mWidth = width;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Float.compare(key.mTextSize, mTextSize) == 0
+                    && mTypefaceStyle == key.mTypefaceStyle
+                    && mWidth == key.mWidth
+                    && mText.equals(key.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + mTypefaceStyle;
+            result = 31 * result + mWidth;
+            return result;
+        }
+    }
+
+    private final LruCache<Key, Integer> mLineCounts = new LruCache<Key, Integer>(MAX_ENTRIES);
+    private final ThreadPoolExecutor mExecutor;
+
+    private TextMeasureCache() {
+        mExecutor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "SuperToast-measure");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    static TextMeasureCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Starts the measuring thread and loads the layout classes on it ahead of the first
+     * SuperToast.
+     */
+    void prewarm() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                measure(new Key("", 1f, Typeface.NORMAL, 1));
+            }
+        });
+    }
+
+    /**
+     * Measures the message on the background thread unless it is already cached.
+     */
+    void prefetch(CharSequence text, float textSize, int typefaceStyle, int width) {
+        if (text == null || width <= 0) {
+            return;
+        }
+
+        final Key key = new Key(text, textSize, typefaceStyle, width);
+        if (mLineCounts.get(key) != null) {
+            return;
+        }
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mLineCounts.get(key) == null) {
+                    mLineCounts.put(key, measure(key));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the line count of the message, measuring it on the calling thread if the
+     * background measurement has not finished yet.
+     *
+     * @return int
+     */
+    int getLineCount(CharSequence text, float textSize, int typefaceStyle, int width) {
+        if (text == null || width <= 0) {
+            return 0;
+        }
+
+        final Key key = new Key(text, textSize, typefaceStyle, width);
+        Integer lineCount = mLineCounts.get(key);
+        if (lineCount == null) {
+            lineCount = measure(key);
+            mLineCounts.put(key, lineCount);
+        }
+        return lineCount;
+    }
+
+    private static int measure(Key key) {
+        final TextPaint paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(key.mTextSize);
+        paint.setTypeface(Typeface.defaultFromStyle(key.mTypefaceStyle));
+        final StaticLayout layout = new StaticLayout(key.mText, paint, key.mWidth,
+                Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+        return layout.getLineCount();
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.support.annotation.StringRes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 命名的Toast通道，通过 {@link ToastUtil#getChannel(String)} 获取
+ * <p>
+ * 每个通道有独立的限速、去重方式和待处理队列，一个频繁弹出的子系统（如同步重试）不会挤掉其他通道的Toast<br/>
+ * 交给 {@link ManagerSuperToast} 后仍按通道计算：各通道轮流显示，等待显示的Toast数同样不超过通道的容量，
+ * 因此积压了很多Toast的通道不会让其他通道一直等待
+ * <p>
+ * 限速使用令牌桶的 GCRA 实现：只保存一个理论到达时间，弹出时对 {@link AtomicLong} 做 CAS，
+ * 不加锁也不分配对象。限速在去重之前进行，重复的Toast同样消耗令牌
+ */
+@SuppressWarnings("unused")
+public final class ToastChannel {
+    private static final long MICROS_PER_SECOND = 1000000L;
+
+    private final String mName;
+    private final ToastQueue<ToastUtil.ToastParam> mQueue;
+    private final AdaptiveDedupWindow mLeadingWindow;
+    private volatile ToastUtil.DedupPolicy mDedupPolicy = ToastUtil.DedupPolicy.MESSAGE;
+    /* 每个令牌的间隔（微秒），0 表示不限速 */
+    private volatile long mEmissionInterval;
+    /* 允许提前的时间（微秒），即 (突发数 - 1) 个间隔 */
+    private volatile long mTolerance;
+    /* GCRA 的理论到达时间（微秒） */
+    private final AtomicLong mTheoreticalArrival = new AtomicLong();
+    private final AtomicLong mRejectedCount = new AtomicLong();
+    /* 只在主线程的 flush 中使用 */
+    private final ArrayList<ToastUtil.ToastParam> mBatch = new ArrayList<>();
+    /* 该通道最后一个Toast的轮次，只在主线程由 ManagerSuperToast 使用 */
+    private long mLastRound;
+
+    ToastChannel(String pName, int pCapacity, long pBaseWindow) {
+        mName = pName;
+        mQueue = new ToastQueue<>(pCapacity, ToastUtil.OverflowPolicy.DROP_OLDEST);
+        mLeadingWindow = new AdaptiveDedupWindow(pBaseWindow);
+    }
+
+    /**
+     * 通道名
+     *
+     * @return String
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 设置限速，默认不限速
+     *
+     * @param pPermitsPerSecond 每秒允许弹出的Toast数，0 表示不限速
+     * @param pBurst            空闲后允许连续弹出的Toast数，必须大于0
+     */
+    public synchronized void setRateLimit(double pPermitsPerSecond, int pBurst) {
+        if (pPermitsPerSecond < 0 || Double.isNaN(pPermitsPerSecond)) {
+            throw new IllegalArgumentException("permits per second must not be negative");
+        }
+        if (pBurst < 1) {
+            throw new IllegalArgumentException("burst must be greater than 0");
+        }
+
+        long interval = 0 == pPermitsPerSecond ? 0 : Math.max(1, (long) (MICROS_PER_SECOND / pPermitsPerSecond));
+        mTolerance = interval * (pBurst - 1);
+        mEmissionInterval = interval;
+    }
+
+    /**
+     * 设置待处理队列的容量
+     *
+     * @param pMaxBacklog 队列容量，必须大于0
+     */
+    public void setMaxBacklog(int pMaxBacklog) {
+        mQueue.setCapacity(pMaxBacklog);
+    }
+
+    /**
+     * 设置队列满时的处理策略，默认为 {@link ToastUtil.OverflowPolicy#DROP_OLDEST}
+     *
+     * @param pPolicy {@link ToastUtil.OverflowPolicy}
+     */
+    public void setOverflowPolicy(ToastUtil.OverflowPolicy pPolicy) {
+        if (null == pPolicy) {
+            throw new IllegalArgumentException("overflow policy must not be null");
+        }
+
+        mQueue.setPolicy(pPolicy);
+    }
+
+    /**
+     * 设置去重方式，默认为 {@link ToastUtil.DedupPolicy#MESSAGE}
+     *
+     * @param pPolicy {@link ToastUtil.DedupPolicy}
+     */
+    public void setDedupPolicy(ToastUtil.DedupPolicy pPolicy) {
+        if (null == pPolicy) {
+            throw new IllegalArgumentException("dedup policy must not be null");
+        }
+
+        mDedupPolicy = pPolicy;
+    }
+
+    /**
+     * 因超过限速被丢弃的Toast数
+     *
+     * @return long
+     */
+    public long getRejectedCount() {
+        return mRejectedCount.get();
+    }
+
+    /**
+     * 在该通道显示Toast
+     *
+     * @param pContext   {@link Context}
+     * @param pStringRes 消息资源
+     */
+    public void show(Context pContext, @StringRes int pStringRes) {
+        ToastUtil.instance().post(this, new ToastUtil.ToastParam(pContext, pStringRes, null));
+    }
+
+    /**
+     * 在该通道显示格式化的Toast，见 {@link ToastUtil#showFormat(Context, int, Object...)}
+     *
+     * @param pContext    {@link Context}
+     * @param pStringRes  格式字符串资源
+     * @param pFormatArgs 格式化参数
+     */
+    public void showFormat(Context pContext, @StringRes int pStringRes, Object... pFormatArgs) {
+        ToastUtil.instance().post(this, new ToastUtil.ToastParam(pContext, pStringRes, pFormatArgs));
+    }
+
+    /**
+     * 在该通道显示Toast
+     *
+     * @param pContext {@link Context}
+     * @param pString  消息
+     */
+    public void show(Context pContext, String pString) {
+        ToastUtil.instance().post(this, new ToastUtil.ToastParam(pContext, pString));
+    }
+
+    /**
+     * 在该通道显示Toast
+     *
+     * @param pContext {@link Context}
+     * @param pString  消息
+     * @param pGravity toast 位置 {@link android.view.Gravity}
+     */
+    public void show(Context pContext, String pString, int pGravity) {
+        ToastUtil.instance().post(this, new ToastUtil.ToastParam(pContext, pString, pGravity));
+    }
+
+    /**
+     * 取一个令牌
+     *
+     * @param pNow 当前时间（毫秒）
+     * @return 未超过限速时返回 true
+     */
+    boolean tryAcquire(long pNow) {
+        long interval = mEmissionInterval;
+        if (0 == interval) {
+            return true;
+        }
+
+        long now = pNow * 1000;
+        long tolerance = mTolerance;
+        while (true) {
+            long arrival = mTheoreticalArrival.get();
+            long start = Math.max(arrival, now);
+            if (start - now > tolerance) {
+                mRejectedCount.incrementAndGet();
+                return false;
+            }
+            if (mTheoreticalArrival.compareAndSet(arrival, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    int getMaxBacklog() {
+        return mQueue.getCapacity();
+    }
+
+    ToastUtil.OverflowPolicy getOverflowPolicy() {
+        return mQueue.getPolicy();
+    }
+
+    long getLastRound() {
+        return mLastRound;
+    }
+
+    void setLastRound(long pLastRound) {
+        mLastRound = pLastRound;
+    }
+
+    boolean offer(ToastUtil.ToastParam pToastParam) {
+        return mQueue.offer(pToastParam, pToastParam.dedupKey(mDedupPolicy));
+    }
+
+    boolean tryLeading(ToastUtil.ToastParam pToastParam, long pNow) {
+        return mLeadingWindow.tryAcquire(pToastParam.dedupKey(mDedupPolicy), pNow);
+    }
+
+    /**
+     * 取出队列中的Toast并去重，结果留在 {@link #getBatch()} 中，只在主线程调用
+     *
+     * @param pKeys 复用的 key 集合，调用前后都为空
+     * @return 被去除的重复Toast数
+     */
+    int drainDeduped(HashSet<Object> pKeys) {
+        mQueue.drainTo(mBatch);
+
+        ToastUtil.DedupPolicy policy = mDedupPolicy;
+        int size = mBatch.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            ToastUtil.ToastParam param = mBatch.get(i);
+            if (pKeys.add(param.dedupKey(policy))) {
+                mBatch.set(kept++, param);
+            }
+        }
+        pKeys.clear();
+
+        for (int i = size - 1; i >= kept; i--) {
+            mBatch.remove(i);
+        }
+        return size - kept;
+    }
+
+    ArrayList<ToastUtil.ToastParam> getBatch() {
+        return mBatch;
+    }
+}
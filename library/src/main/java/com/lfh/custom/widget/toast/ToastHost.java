@@ -0,0 +1,52 @@
+package com.lfh.custom.widget.toast;
+
+import android.view.WindowManager;
+
+/**
+ * Where the {@link ManagerSuperToast} attaches the view of a showing {@link SuperToast}.
+ * All methods are called on the main thread.
+ */
+interface ToastHost {
+
+    /**
+     * Attaches the view of the SuperToast.
+     *
+     * @param superToast {@link SuperToast} with a bound view
+     * @param params     window layout of the SuperToast, must not be modified
+     * @return false if this host cannot show the SuperToast right now
+     */
+    boolean attach(SuperToast superToast, WindowManager.LayoutParams params);
+
+    /**
+     * Applies a changed layout to an attached SuperToast.
+     *
+     * @param superToast {@link SuperToast} attached to this host
+     * @param params     window layout of the SuperToast, must not be modified
+     */
+    void updateLayout(SuperToast superToast, WindowManager.LayoutParams params);
+
+    /**
+     * Removes the view of an attached SuperToast.
+     *
+     * @param superToast {@link SuperToast} attached to this host
+     */
+    void detach(SuperToast superToast);
+
+    /**
+     * Time from attaching the SuperToast until it is fully shown, its duration counts from then.
+     *
+     * @param superToast {@link SuperToast}
+     * @return milliseconds
+     */
+    long getEnterDuration(SuperToast superToast);
+
+    /**
+     * Time from detaching the SuperToast until its view is gone from the screen, the next
+     * SuperToast is attached once it passed.
+     *
+     * @param superToast {@link SuperToast}
+     * @return milliseconds
+     */
+    long getExitDuration(SuperToast superToast);
+
+}
@@ -0,0 +1,407 @@
+package com.lfh.custom.widget.toast;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in instrumentation of the toast pipeline. Nothing is recorded until
+ * {@link #setEnabled(boolean)} is called, and the hooks only read a volatile flag while
+ * disabled. Timings are kept in microseconds in fixed-size {@link Histogram}s, so
+ * recording never allocates. With {@link #setTraceEnabled(boolean)} the bind, addView
+ * and removeView steps are also wrapped in {@link Trace} sections for systrace/Perfetto.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public final class ToastMetrics {
+
+    static final String SECTION_BIND = "SuperToast.bind";
+    static final String SECTION_ADD_VIEW = "SuperToast.addView";
+    static final String SECTION_REMOVE_VIEW = "SuperToast.removeView";
+
+    private static final class Holder {
+        private static final ToastMetrics INSTANCE = new ToastMetrics();
+    }
+
+    private final Histogram mDisplayLatency = new Histogram();
+    private final Histogram mBindTime = new Histogram();
+    private final Histogram mAddViewTime = new Histogram();
+    private final Histogram mRemoveViewTime = new Histogram();
+    private final Histogram mQueueDepth = new Histogram();
+    private final AtomicLong mDedupDrops = new AtomicLong();
+    private final AtomicLong mCancelledToasts = new AtomicLong();
+    private volatile boolean mEnabled;
+    private volatile boolean mTraceEnabled;
+
+    private ToastMetrics() {
+    }
+
+    /**
+     * Returns the metrics shared by all SuperToasts and {@link ToastUtil}.
+     *
+     * @return {@link ToastMetrics}
+     */
+    public static ToastMetrics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Starts or stops recording. Disabled by default.
+     *
+     * @param enabled boolean
+     */
+    public void setEnabled(boolean enabled) {
+        this.mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Wraps the bind, addView and removeView steps in {@link Trace} sections while
+     * recording is enabled. Only has an effect on API 18 and above. Should be set before
+     * SuperToasts are shown so sections are always closed on the same setting.
+     *
+     * @param traceEnabled boolean
+     */
+    public void setTraceEnabled(boolean traceEnabled) {
+        this.mTraceEnabled = traceEnabled;
+    }
+
+    public boolean isTraceEnabled() {
+        return mTraceEnabled;
+    }
+
+    /**
+     * Time from {@link ToastUtil#show(android.content.Context, String)} or
+     * {@link SuperToast#show()} until the view is added to the window manager.
+     *
+     * @return {@link Histogram} in microseconds
+     */
+    public Histogram getDisplayLatency() {
+        return mDisplayLatency;
+    }
+
+    /**
+     * Time spent inflating (or taking from the pool) and binding the view.
+     *
+     * @return {@link Histogram} in microseconds
+     */
+    public Histogram getBindTime() {
+        return mBindTime;
+    }
+
+    /**
+     * Time spent in WindowManager.addView.
+     *
+     * @return {@link Histogram} in microseconds
+     */
+    public Histogram getAddViewTime() {
+        return mAddViewTime;
+    }
+
+    /**
+     * Time spent in WindowManager.removeView.
+     *
+     * @return {@link Histogram} in microseconds
+     */
+    public Histogram getRemoveViewTime() {
+        return mRemoveViewTime;
+    }
+
+    /**
+     * Number of pending SuperToasts, sampled each time one is added.
+     *
+     * @return {@link Histogram} of queue depths
+     */
+    public Histogram getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    /**
+     * Returns the number of {@link ToastUtil} messages dropped as duplicates.
+     *
+     * @return long
+     */
+    public long getDedupDropCount() {
+        return mDedupDrops.get();
+    }
+
+    /**
+     * Returns the number of showing or pending SuperToasts discarded by
+     * {@link SuperToast#cancelAllSuperToasts()}.
+     *
+     * @return long
+     */
+    public long getCancelledCount() {
+        return mCancelledToasts.get();
+    }
+
+    /**
+     * Clears every histogram and counter.
+     */
+    public void reset() {
+        mDisplayLatency.reset();
+        mBindTime.reset();
+        mAddViewTime.reset();
+        mRemoveViewTime.reset();
+        mQueueDepth.reset();
+        mDedupDrops.set(0);
+        mCancelledToasts.set(0);
+    }
+
+    /**
+     * Returns a snapshot of every histogram and counter, together with the hit/miss
+     * counters of the view pool and the resource cache, as a JSON object so runs can be
+     * collected and compared release over release. Timings are in microseconds.
+     *
+     * @return JSON string
+     */
+    public String toJson() {
+        final ToastViewPool viewPool = ManagerSuperToast.getInstance().getViewPool();
+        final ResourceCache resourceCache = ResourceCache.getInstance();
+
+        final StringBuilder json = new StringBuilder(1024);
+        json.append('{');
+        json.append("\"enabled\":").append(mEnabled);
+        json.append(",\"displayLatencyUs\":");
+        mDisplayLatency.appendJson(json);
+        json.append(",\"bindTimeUs\":");
+        mBindTime.appendJson(json);
+        json.append(",\"addViewTimeUs\":");
+        mAddViewTime.appendJson(json);
+        json.append(",\"removeViewTimeUs\":");
+        mRemoveViewTime.appendJson(json);
+        json.append(",\"queueDepth\":");
+        mQueueDepth.appendJson(json);
+        json.append(",\"dedupDrops\":").append(mDedupDrops.get());
+        json.append(",\"cancelled\":").append(mCancelledToasts.get());
+        json.append(",\"viewPool\":{\"hits\":").append(viewPool.getHitCount())
+                .append(",\"misses\":").append(viewPool.getMissCount()).append('}');
+        json.append(",\"resourceCache\":{\"hits\":").append(resourceCache.getHitCount())
+                .append(",\"misses\":").append(resourceCache.getMissCount()).append('}');
+        json.append('}');
+        return json.toString();
+    }
+
+    /* Timestamp for the start of a request, 0 while disabled */
+    long now() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    /* Starts a timed step, returns 0 while disabled */
+    long begin(String section) {
+        if (!mEnabled) {
+            return 0;
+        }
+
+        if (mTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
+        return System.nanoTime();
+    }
+
+    /* Ends a step started with begin() */
+    void end(Histogram histogram, long start) {
+        if (start == 0) {
+            return;
+        }
+
+        histogram.record((System.nanoTime() - start) / 1000);
+        if (mTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    void recordDisplayLatency(long requestTime) {
+        if (mEnabled && requestTime != 0) {
+            mDisplayLatency.record((System.nanoTime() - requestTime) / 1000);
+        }
+    }
+
+    void recordQueueDepth(int depth) {
+        if (mEnabled) {
+            mQueueDepth.record(depth);
+        }
+    }
+
+    void recordDedupDrops(int count) {
+        if (mEnabled && count > 0) {
+            mDedupDrops.addAndGet(count);
+        }
+    }
+
+    void recordCancelled(int count) {
+        if (mEnabled && count > 0) {
+            mCancelledToasts.addAndGet(count);
+        }
+    }
+
+    /**
+     * Histogram with a fixed set of power of two buckets. Bucket 0 counts zero values
+     * and bucket i counts values from 2^(i-1) up to 2^i - 1, the last bucket also takes
+     * everything larger. Safe to record to and read from any thread.
+     */
+    public static final class Histogram {
+
+        /** Number of buckets, the last one is unbounded */
+        public static final int BUCKET_COUNT = 32;
+
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        Histogram() {
+        }
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+
+            final int bucket = Math.min(64 - Long.numberOfLeadingZeros(value), BUCKET_COUNT - 1);
+            mBuckets.incrementAndGet(bucket);
+            mCount.incrementAndGet();
+            mSum.addAndGet(value);
+
+            long max = mMax.get();
+            while (value > max && !mMax.compareAndSet(max, value)) {
+                max = mMax.get();
+            }
+        }
+
+        /**
+         * Returns the number of recorded values.
+         *
+         * @return long
+         */
+        public long getCount() {
+            return mCount.get();
+        }
+
+        /**
+         * Returns the sum of all recorded values.
+         *
+         * @return long
+         */
+        public long getSum() {
+            return mSum.get();
+        }
+
+        /**
+         * Returns the largest recorded value.
+         *
+         * @return long
+         */
+        public long getMax() {
+            return mMax.get();
+        }
+
+        /**
+         * Returns the mean of the recorded values.
+         *
+         * @return double, 0 if nothing was recorded
+         */
+        public double getMean() {
+            final long count = mCount.get();
+            return count == 0 ? 0 : (double) mSum.get() / count;
+        }
+
+        /**
+         * Returns the number of values recorded in a bucket.
+         *
+         * @param bucket index from 0 to {@link #BUCKET_COUNT} - 1
+         * @return long
+         */
+        public long getBucketCount(int bucket) {
+            return mBuckets.get(bucket);
+        }
+
+        /**
+         * Returns the largest value counted by a bucket, {@link Long#MAX_VALUE} for the last one.
+         *
+         * @param bucket index from 0 to {@link #BUCKET_COUNT} - 1
+         * @return long
+         */
+        public static long getBucketUpperBound(int bucket) {
+            if (bucket >= BUCKET_COUNT - 1) {
+                return Long.MAX_VALUE;
+            }
+            return (1L << bucket) - 1;
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given percentile.
+         *
+         * @param percentile between 0 and 100
+         * @return long, 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+
+            final long count = mCount.get();
+            if (count == 0) {
+                return 0;
+            }
+
+            final long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+                seen += mBuckets.get(i);
+                if (seen >= rank) {
+                    return getBucketUpperBound(i);
+                }
+            }
+            return mMax.get();
+        }
+
+        /* Summary and non-empty buckets keyed by their upper bound, "max" for the last one */
+        void appendJson(StringBuilder json) {
+            json.append("{\"count\":").append(getCount());
+            json.append(",\"sum\":").append(getSum());
+            json.append(",\"mean\":").append(getMean());
+            json.append(",\"max\":").append(getMax());
+            json.append(",\"p50\":").append(getPercentile(50));
+            json.append(",\"p90\":").append(getPercentile(90));
+            json.append(",\"p99\":").append(getPercentile(99));
+            json.append(",\"buckets\":{");
+            boolean first = true;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                final long count = mBuckets.get(i);
+                if (count == 0) {
+                    continue;
+                }
+                if (!first) {
+                    json.append(',');
+                }
+                json.append('"');
+                if (i == BUCKET_COUNT - 1) {
+                    json.append("max");
+                } else {
+                    json.append(getBucketUpperBound(i));
+                }
+                json.append("\":").append(count);
+                first = false;
+            }
+            json.append("}}");
+        }
+
+        /**
+         * Clears the histogram.
+         */
+        public void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets.set(i, 0);
+            }
+            mCount.set(0);
+            mSum.set(0);
+            mMax.set(0);
+        }
+    }
+
+}
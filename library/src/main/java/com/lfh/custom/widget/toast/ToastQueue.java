@@ -0,0 +1,115 @@
+package com.lfh.custom.widget.toast;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 有界的 Toast 待处理队列
+ * <p>
+ * 容量满时按 {@link ToastUtil.OverflowPolicy} 丢弃或合并，保证待处理的 Toast 不会无限增长<br/>
+ * 每个元素带一个去重用的 key，合并时按 key 的 hash 查找，不需要遍历队列<br/>
+ * 元素保存在 {@link ArrayDeque} 环形缓冲区中，加入和取出都不会移动其他元素
+ */
+final class ToastQueue<E> {
+    private final ArrayDeque<E> mElements;
+    private final ArrayDeque<Object> mKeys;
+    private final Map<Object, Integer> mKeyCounts = new HashMap<>();
+    private int mCapacity;
+    private ToastUtil.OverflowPolicy mPolicy;
+
+    ToastQueue(int pCapacity, ToastUtil.OverflowPolicy pPolicy) {
+        checkCapacity(pCapacity);
+        mElements = new ArrayDeque<>(pCapacity);
+        mKeys = new ArrayDeque<>(pCapacity);
+        mCapacity = pCapacity;
+        mPolicy = pPolicy;
+    }
+
+    /**
+     * 加入队列
+     *
+     * @param pElement 待处理的元素
+     * @param pKey     去重用的 key
+     * @return 元素被加入时返回 true，被丢弃或合并时返回 false
+     */
+    synchronized boolean offer(E pElement, Object pKey) {
+        if (mPolicy == ToastUtil.OverflowPolicy.COALESCE && mKeyCounts.containsKey(pKey)) {
+            ToastMetrics.getInstance().recordDedupDrops(1);
+            return false;
+        }
+
+        if (mElements.size() >= mCapacity) {
+            if (mPolicy == ToastUtil.OverflowPolicy.DROP_NEWEST) {
+                return false;
+            }
+
+            pollFirst();
+        }
+
+        mElements.addLast(pElement);
+        mKeys.addLast(pKey);
+        Integer count = mKeyCounts.get(pKey);
+        mKeyCounts.put(pKey, null == count ? 1 : count + 1);
+
+        return true;
+    }
+
+    /**
+     * 按加入顺序取出队列中全部元素，添加到 pTarget 中，调用方可复用 pTarget 以避免每次分配
+     *
+     * @param pTarget 接收元素的列表
+     */
+    synchronized void drainTo(List<? super E> pTarget) {
+        E element;
+        while (null != (element = mElements.pollFirst())) {
+            pTarget.add(element);
+        }
+        mKeys.clear();
+        mKeyCounts.clear();
+    }
+
+    synchronized int size() {
+        return mElements.size();
+    }
+
+    synchronized void setCapacity(int pCapacity) {
+        checkCapacity(pCapacity);
+        mCapacity = pCapacity;
+
+        while (mElements.size() > mCapacity) {
+            pollFirst();
+        }
+    }
+
+    synchronized void setPolicy(ToastUtil.OverflowPolicy pPolicy) {
+        mPolicy = pPolicy;
+    }
+
+    synchronized int getCapacity() {
+        return mCapacity;
+    }
+
+    synchronized ToastUtil.OverflowPolicy getPolicy() {
+        return mPolicy;
+    }
+
+    private void pollFirst() {
+        mElements.pollFirst();
+        Object key = mKeys.pollFirst();
+        Integer count = mKeyCounts.get(key);
+
+        if (null == count || count <= 1) {
+            mKeyCounts.remove(key);
+        } else {
+            mKeyCounts.put(key, count - 1);
+        }
+    }
+
+    private static void checkCapacity(int pCapacity) {
+        if (pCapacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + pCapacity);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lfh.custom.widget.toast;
+
+/**
+ * Clock and task scheduler that drives the {@link SuperToast} lifecycle. By default
+ * SuperToasts run on the main thread with {@link android.os.SystemClock#uptimeMillis()}
+ * as the clock. A virtual implementation can be installed with
+ * {@link SuperToast#setScheduler(ToastScheduler)} so that thousands of SuperToasts can be
+ * simulated without waiting in real time.
+ */
+public interface ToastScheduler {
+
+    /**
+     * Returns the current time of the clock in milliseconds.
+     *
+     * @return long
+     */
+    long now();
+
+    /**
+     * Runs the task on the scheduler thread once {@link #now()} reaches the given time.
+     *
+     * @param task         {@link Runnable}
+     * @param uptimeMillis time at which the task runs
+     */
+    void scheduleAt(Runnable task, long uptimeMillis);
+
+    /**
+     * Removes every scheduled run of the task.
+     *
+     * @param task {@link Runnable}
+     */
+    void cancel(Runnable task);
+
+    /**
+     * Runs the task on the scheduler thread as soon as possible, may be called from any thread.
+     *
+     * @param task {@link Runnable}
+     */
+    void post(Runnable task);
+
+    /**
+     * Returns true if called on the thread that runs the scheduled tasks.
+     *
+     * @return boolean
+     */
+    boolean isSchedulerThread();
+
+}
@@ -6,17 +6,12 @@ import android.text.TextUtils;
 import android.view.Gravity;
 
 import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
-
-import rx.Observable;
-import rx.Subscription;
-import rx.android.schedulers.AndroidSchedulers;
-import rx.functions.Action1;
-import rx.functions.Func1;
-import rx.schedulers.Schedulers;
-import rx.subjects.ReplaySubject;
-
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Toast 工具类
@@ -25,18 +20,101 @@ import rx.subjects.ReplaySubject;
  * <p>
  * 在 {@link #TIME_SPAN} 的时间内连续调用时，会去除相同的Toast<br/>
  * 如：在 {@link #TIME_SPAN} 的时间内连续用“网络错误”调用，只会弹出一个Toast显示“网络错误”<br/>
- * 注：如果是不同的 <code>string</code> 调用则不会去重，会按顺序弹出
+ * 注：如果是不同的 <code>string</code> 调用则不会去重，会按顺序弹出，判断是否相同的方式见 {@link DedupPolicy}
+ * <p>
+ * 待处理的Toast保存在容量为 {@link #DEFAULT_CAPACITY} 的有界队列中，超出容量时按 {@link OverflowPolicy} 处理，
+ * 队列只持有 ApplicationContext 和消息内容
+ * <p>
+ * 去重窗口在第一次调用 show 时才开始计时，窗口结束后没有新的Toast则不再占用任何调度器<br/>
+ * 窗口结束时在主线程上一次性去重并显示，不经过额外的线程
+ * <p>
+ * 设置为 {@link DedupMode#LEADING_EDGE} 后第一个消息立即显示，不再等待窗口结束
+ * <p>
+ * 以上静态方法使用默认通道 {@link #DEFAULT_CHANNEL}，需要独立限速和去重的调用方可使用 {@link #getChannel(String)}
  */
 public class ToastUtil {
     private static final int TIME_SPAN = 500;
+    private static final int DEFAULT_CAPACITY = 64;
+    /**
+     * 默认通道名，{@link #show(Context, String)} 等静态方法使用该通道
+     */
+    public static final String DEFAULT_CHANNEL = "default";
     private static ToastUtil sInstance;
-    private ReplaySubject<ToastParam> mToastSubject = ReplaySubject.create();
+    private final ConcurrentHashMap<String, ToastChannel> mChannels = new ConcurrentHashMap<>();
+    /* 按创建顺序排列，flush 时按该顺序取出 */
+    private final CopyOnWriteArrayList<ToastChannel> mChannelOrder = new CopyOnWriteArrayList<>();
+    private final ToastChannel mDefaultChannel;
+    private final AtomicBoolean mFlushArmed = new AtomicBoolean();
+    private volatile DedupMode mDedupMode = DedupMode.TRAILING;
+    /* 只在主线程的 flush 中使用，每个窗口复用 */
+    private final HashSet<Object> mBatchKeys = new HashSet<>();
+    private final Runnable mFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃最早加入的Toast
+         */
+        DROP_OLDEST,
+
+        /**
+         * 丢弃新加入的Toast
+         */
+        DROP_NEWEST,
+
+        /**
+         * 与队列中相同的Toast合并，队列满时丢弃最早加入的Toast
+         */
+        COALESCE
+    }
+
+    /**
+     * 去重窗口的工作方式
+     */
+    public enum DedupMode {
+        /**
+         * 窗口结束后统一去重再显示，每个Toast最多延迟 {@link #TIME_SPAN}
+         */
+        TRAILING,
+
+        /**
+         * 第一个消息立即显示，只丢弃窗口内的重复消息，窗口长度随消息频率自适应，见 {@link AdaptiveDedupWindow}
+         */
+        LEADING_EDGE
+    }
+
+    /**
+     * 去重时判断两个Toast相同的方式
+     */
+    public enum DedupPolicy {
+        /**
+         * 消息相同即认为相同
+         */
+        MESSAGE,
+
+        /**
+         * 消息和位置都相同才认为相同
+         */
+        MESSAGE_AND_GRAVITY,
+
+        /**
+         * 消息和调用方指定的分类都相同才认为相同，分类见 {@link #show(Context, String, int, String)}
+         */
+        MESSAGE_AND_CATEGORY
+    }
 
     private ToastUtil() {
-        /* no-op */
+        mDefaultChannel = getOrCreateChannel(DEFAULT_CHANNEL);
     }
 
-    private static ToastUtil instance() {
+    static ToastUtil instance() {
         if (null == sInstance) {
             synchronized (ToastUtil.class) {
                 if (null == sInstance) {
@@ -48,60 +126,162 @@ public class ToastUtil {
         return sInstance;
     }
 
-    @SuppressWarnings("unused")
-    private Subscription mToastSubscription = mToastSubject
-            .filter(new Func1<ToastParam, Boolean>() {
-                @Override
-                public Boolean call(ToastParam pToastParam) {
-                    return null != pToastParam.mContext && !TextUtils.isEmpty(pToastParam.mString);
-                }
-            })
-            .buffer(TIME_SPAN, TimeUnit.MILLISECONDS)
-            .filter(new Func1<List<ToastParam>, Boolean>() {
-                @Override
-                public Boolean call(List<ToastParam> pToastParams) {
-                    return null != pToastParams && !pToastParams.isEmpty();
-                }
-            })
-            .map(new Func1<List<ToastParam>, List<ToastParam>>() {
-                @Override
-                public List<ToastParam> call(List<ToastParam> pToastParams) {
-                    ArrayList<ToastParam> newParams = new ArrayList<>();
+    private ToastChannel getOrCreateChannel(String pName) {
+        ToastChannel channel = mChannels.get(pName);
+        if (null != channel) {
+            return channel;
+        }
+
+        ToastChannel created = new ToastChannel(pName, DEFAULT_CAPACITY, TIME_SPAN);
+        channel = mChannels.putIfAbsent(pName, created);
+        if (null == channel) {
+            mChannelOrder.add(created);
+            channel = created;
+        }
+        return channel;
+    }
 
-                    for (ToastParam param : pToastParams) {
-                        if (!newParams.contains(param)) {
-                            newParams.add(param);
-                        }
-                    }
+    /**
+     * 去重窗口结束，在主线程上按通道去重后交给 {@link ManagerSuperToast}，通道间的轮流在其队列中进行
+     */
+    private void flush() {
+        /* 先解除再取出，取出过程中加入的Toast会重新开始一个窗口 */
+        mFlushArmed.set(false);
 
-                    return newParams;
-                }
-            })
-            .flatMap(new Func1<List<ToastParam>, Observable<ToastParam>>() {
-                @Override
-                public Observable<ToastParam> call(List<ToastParam> pToastParams) {
-                    return Observable.from(pToastParams);
-                }
-            })
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(new Action1<ToastParam>() {
-                @Override
-                public void call(ToastParam pToastParam) {
-                    toast(pToastParam.mContext, pToastParam.mString, pToastParam.mGravity);
-                }
-            }, new Action1<Throwable>() {
+        int dropped = 0;
+        for (ToastChannel channel : mChannelOrder) {
+            dropped += channel.drainDeduped(mBatchKeys);
+            ArrayList<ToastParam> batch = channel.getBatch();
+            for (int i = 0, size = batch.size(); i < size; i++) {
+                toast(channel, batch.get(i));
+            }
+            batch.clear();
+        }
+        ToastMetrics.getInstance().recordDedupDrops(dropped);
+    }
+
+    private void toast(ToastChannel pChannel, ToastParam pToastParam) {
+        /* 资源消息到这里才解析和格式化，被去重丢弃的消息不会产生字符串 */
+        SuperToast superToast = SuperToast.create(pToastParam.mContext, pToastParam.resolveMessage(), SuperToast.Duration.VERY_SHORT);
+        superToast.setTextSize(SuperToast.TextSize.MEDIUM);
+        superToast.setGravity(pToastParam.mGravity, 0, 0);
+        /* 延迟从调用 show 时开始计算 */
+        superToast.setRequestTime(pToastParam.mRequestTime);
+        /* 等待显示时按通道轮流，并受通道容量限制 */
+        superToast.setChannel(pChannel);
+        superToast.show();
+    }
+
+    void post(ToastChannel pChannel, ToastParam pToastParam) {
+        if (null == pToastParam.mContext || (0 == pToastParam.mStringRes && TextUtils.isEmpty(pToastParam.mString))) {
+            return;
+        }
+
+        /* 与 SuperToast 使用同一个调度器，替换后去重窗口和限速也按虚拟时间计时 */
+        ToastScheduler scheduler = ManagerSuperToast.getInstance().getScheduler();
+        if (!pChannel.tryAcquire(scheduler.now())) {
+            return;
+        }
+
+        if (mDedupMode == DedupMode.LEADING_EDGE) {
+            postLeading(pChannel, pToastParam, scheduler);
+            return;
+        }
+
+        pChannel.offer(pToastParam);
+
+        if (mFlushArmed.compareAndSet(false, true)) {
+            scheduler.scheduleAt(mFlushTask, scheduler.now() + TIME_SPAN);
+        }
+    }
+
+    private void postLeading(final ToastChannel pChannel, final ToastParam pToastParam, ToastScheduler pScheduler) {
+        if (!pChannel.tryLeading(pToastParam, pScheduler.now())) {
+            ToastMetrics.getInstance().recordDedupDrops(1);
+            return;
+        }
+
+        if (pScheduler.isSchedulerThread()) {
+            toast(pChannel, pToastParam);
+        } else {
+            pScheduler.post(new Runnable() {
                 @Override
-                public void call(Throwable pThrowable) {
-                    pThrowable.printStackTrace();
+                public void run() {
+                    toast(pChannel, pToastParam);
                 }
             });
+        }
+    }
 
-    private void toast(Context pContext, String pMessage, int pGravity) {
-        SuperToast superToast = SuperToast.create(pContext.getApplicationContext(), pMessage, SuperToast.Duration.VERY_SHORT);
-        superToast.setTextSize(SuperToast.TextSize.MEDIUM);
-        superToast.setGravity(pGravity, 0, 0);
-        superToast.show();
+    /**
+     * 预热，提前完成首个Toast需要的初始化（单例、WindowManager、资源、布局加载等），
+     * 建议在 Application.onCreate 或 IdleHandler 中调用，可在任意线程调用
+     *
+     * @param pContext {@link Context}
+     */
+    @SuppressWarnings("unused")
+    public static void prewarm(Context pContext) {
+        instance();
+        SuperToast.prewarm(pContext);
+    }
+
+    /**
+     * 获取命名的通道，不存在时创建，新通道不限速，容量为 {@link #DEFAULT_CAPACITY}
+     *
+     * @param pName 通道名
+     * @return {@link ToastChannel}
+     */
+    @SuppressWarnings("unused")
+    public static ToastChannel getChannel(String pName) {
+        if (null == pName) {
+            throw new IllegalArgumentException("channel name must not be null");
+        }
+
+        return instance().getOrCreateChannel(pName);
+    }
+
+    /**
+     * 设置默认通道待处理Toast队列的容量，默认为 {@link #DEFAULT_CAPACITY}
+     *
+     * @param pCapacity 队列容量，必须大于0
+     */
+    @SuppressWarnings("unused")
+    public static void setCapacity(int pCapacity) {
+        instance().mDefaultChannel.setMaxBacklog(pCapacity);
+    }
+
+    /**
+     * 设置默认通道队列满时的处理策略，默认为 {@link OverflowPolicy#DROP_OLDEST}
+     *
+     * @param pPolicy {@link OverflowPolicy}
+     */
+    @SuppressWarnings("unused")
+    public static void setOverflowPolicy(OverflowPolicy pPolicy) {
+        instance().mDefaultChannel.setOverflowPolicy(pPolicy);
+    }
+
+    /**
+     * 设置默认通道的去重方式，默认为 {@link DedupPolicy#MESSAGE}
+     *
+     * @param pPolicy {@link DedupPolicy}
+     */
+    @SuppressWarnings("unused")
+    public static void setDedupPolicy(DedupPolicy pPolicy) {
+        instance().mDefaultChannel.setDedupPolicy(pPolicy);
+    }
+
+    /**
+     * 设置去重窗口的工作方式，默认为 {@link DedupMode#TRAILING}
+     *
+     * @param pMode {@link DedupMode}
+     */
+    @SuppressWarnings("unused")
+    public static void setDedupMode(DedupMode pMode) {
+        if (null == pMode) {
+            throw new IllegalArgumentException("dedup mode must not be null");
+        }
+
+        instance().mDedupMode = pMode;
     }
 
     /**
@@ -112,7 +292,19 @@ public class ToastUtil {
      */
     @SuppressWarnings("unused")
     public static void show(final Context pContext, @StringRes int pStringRes) {
-        show(pContext, pContext.getApplicationContext().getString(pStringRes));
+        instance().post(instance().mDefaultChannel, new ToastParam(pContext, pStringRes, null));
+    }
+
+    /**
+     * 显示格式化的Toast，去重时比较资源 id 和参数，只有真正显示时才解析资源并格式化
+     *
+     * @param pContext    {@link Context}
+     * @param pStringRes  格式字符串资源
+     * @param pFormatArgs 格式化参数，去重时用 equals 比较
+     */
+    @SuppressWarnings("unused")
+    public static void showFormat(final Context pContext, @StringRes int pStringRes, final Object... pFormatArgs) {
+        instance().post(instance().mDefaultChannel, new ToastParam(pContext, pStringRes, pFormatArgs));
     }
 
     /**
@@ -122,7 +314,7 @@ public class ToastUtil {
      * @param pString  消息
      */
     public static void show(final Context pContext, final String pString) {
-        instance().mToastSubject.onNext(new ToastParam(pContext, pString));
+        instance().post(instance().mDefaultChannel, new ToastParam(pContext, pString));
     }
 
     /**
@@ -134,7 +326,9 @@ public class ToastUtil {
      */
     @SuppressWarnings("unused")
     public static void show(final Context pContext, @StringRes int pStringRes, final int pGravity) {
-        show(pContext, pContext.getApplicationContext().getString(pStringRes), pGravity);
+        ToastParam param = new ToastParam(pContext, pStringRes, null);
+        param.mGravity = pGravity;
+        instance().post(instance().mDefaultChannel, param);
     }
 
     /**
@@ -146,35 +340,119 @@ public class ToastUtil {
      */
     @SuppressWarnings("WeakerAccess")
     public static void show(final Context pContext, final String pString, final int pGravity) {
-        instance().mToastSubject.onNext(new ToastParam(pContext, pString, pGravity));
+        instance().post(instance().mDefaultChannel, new ToastParam(pContext, pString, pGravity));
     }
 
-    private static class ToastParam {
+    /**
+     * 显示Toast
+     *
+     * @param pContext  {@link Context}
+     * @param pString   消息
+     * @param pGravity  toast 位置 {@link Gravity}
+     * @param pCategory 分类，去重方式为 {@link DedupPolicy#MESSAGE_AND_CATEGORY} 时使用
+     */
+    @SuppressWarnings("unused")
+    public static void show(final Context pContext, final String pString, final int pGravity, final String pCategory) {
+        ToastParam param = new ToastParam(pContext, pString, pGravity);
+        param.mCategory = pCategory;
+        instance().post(instance().mDefaultChannel, param);
+    }
+
+    static class ToastParam {
         private final Context mContext;
+        /* 直接传入的消息，资源消息为 null */
         private final String mString;
+        /* 延迟解析的消息资源和格式化参数 */
+        private final int mStringRes;
+        private final Object[] mFormatArgs;
         private int mGravity = Gravity.BOTTOM;
+        private String mCategory;
+        private final long mRequestTime = ToastMetrics.getInstance().now();
 
-        private ToastParam(Context pContext, String pString) {
-            mContext = pContext;
+        ToastParam(Context pContext, String pString) {
+            mContext = null == pContext ? null : pContext.getApplicationContext();
             mString = pString;
+            mStringRes = 0;
+            mFormatArgs = null;
+        }
+
+        ToastParam(Context pContext, @StringRes int pStringRes, Object[] pFormatArgs) {
+            mContext = null == pContext ? null : pContext.getApplicationContext();
+            mString = null;
+            mStringRes = pStringRes;
+            mFormatArgs = null == pFormatArgs || 0 == pFormatArgs.length ? null : pFormatArgs;
         }
 
-        private ToastParam(Context pContext, String pString, int pGravity) {
+        ToastParam(Context pContext, String pString, int pGravity) {
             this(pContext, pString);
             mGravity = pGravity;
         }
 
+        Object dedupKey(DedupPolicy pPolicy) {
+            switch (pPolicy) {
+                case MESSAGE_AND_GRAVITY:
+                    return new DedupKey(mString, mStringRes, mFormatArgs, mGravity, null);
+                case MESSAGE_AND_CATEGORY:
+                    return new DedupKey(mString, mStringRes, mFormatArgs, 0, mCategory);
+                default:
+                    return null != mString ? mString : new DedupKey(null, mStringRes, mFormatArgs, 0, null);
+            }
+        }
+
+        /**
+         * 得到要显示的消息，资源消息从 {@link ResourceCache} 中按当前语言取得，只在主线程调用
+         */
+        String resolveMessage() {
+            if (null != mString) {
+                return mString;
+            }
+
+            String message = ResourceCache.getInstance().getString(mContext, mStringRes);
+            if (null == mFormatArgs) {
+                return message;
+            }
+            return String.format(Locale.getDefault(), message, mFormatArgs);
+        }
+    }
+
+    /**
+     * 去重用的 key，直接传入的消息比较字符串，资源消息比较资源 id 和格式化参数，两者之间不去重
+     */
+    private static final class DedupKey {
+        private final String mString;
+        private final int mStringRes;
+        private final Object[] mFormatArgs;
+        private final int mGravity;
+        private final String mCategory;
+
+        private DedupKey(String pString, int pStringRes, Object[] pFormatArgs, int pGravity, String pCategory) {
+            mString = pString;
+            mStringRes = pStringRes;
+            mFormatArgs = pFormatArgs;
+            mGravity = pGravity;
+            mCategory = pCategory;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
-            ToastParam that = (ToastParam) o;
-            return mString != null ? mString.equals(that.mString) : that.mString == null;
+            DedupKey that = (DedupKey) o;
+            return mGravity == that.mGravity
+                    && mStringRes == that.mStringRes
+                    && (mString != null ? mString.equals(that.mString) : that.mString == null)
+                    && Arrays.equals(mFormatArgs, that.mFormatArgs)
+                    && (mCategory != null ? mCategory.equals(that.mCategory) : that.mCategory == null);
         }
 
         @Override
         public int hashCode() {
-            return mString != null ? mString.hashCode() : 0;
+            int result = mString != null ? mString.hashCode() : 0;
+            result = 31 * result + mStringRes;
+            result = 31 * result + Arrays.hashCode(mFormatArgs);
+            result = 31 * result + mGravity;
+            result = 31 * result + (mCategory != null ? mCategory.hashCode() : 0);
+            return result;
         }
     }
 }
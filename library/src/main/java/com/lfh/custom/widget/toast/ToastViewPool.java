@@ -0,0 +1,166 @@
+package com.lfh.custom.widget.toast;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.TypedValue;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small bounded pool of inflated {@link SuperToast} views owned by the
+ * {@link ManagerSuperToast}. Views are reset to the layout defaults when released
+ * so a dismissed toast's view can be reused by the next one.
+ */
+@SuppressWarnings({"UnusedDeclaration", "deprecation"})
+public final class ToastViewPool {
+
+    private final ArrayDeque<View> mViews;
+    private final int mMaxSize;
+    private int mHitCount;
+    private int mMissCount;
+
+    /* Layout defaults captured from the first inflated view, used to reset recycled views */
+    private ColorStateList mDefaultTextColors;
+    private float mDefaultTextSize;
+    private Typeface mDefaultTypeface;
+    private int mDefaultPaddingLeft;
+    private int mDefaultPaddingTop;
+    private int mDefaultPaddingRight;
+    private int mDefaultPaddingBottom;
+
+    ToastViewPool(int maxSize) {
+        mViews = new ArrayDeque<>(maxSize);
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Returns a pooled view or inflates a new one. Views are always inflated with the
+     * application context so that pooled views never hold on to an Activity.
+     *
+     * @param context {@link Context}
+     * @return {@link View}
+     */
+    @SuppressLint("InflateParams")
+    synchronized View acquire(Context context) {
+        final View view = mViews.pollFirst();
+        if (view != null) {
+            mHitCount++;
+            return view;
+        }
+
+        mMissCount++;
+        final View inflated = LayoutInflater.from(context.getApplicationContext())
+                .inflate(R.layout.super_toast_view, null);
+        if (mDefaultTextColors == null) {
+            captureDefaults((TextView) inflated);
+        }
+        return inflated;
+    }
+
+    /**
+     * Inflates one view into the pool ahead of the first SuperToast. Does nothing if the
+     * pool already holds a view. Must be called on the main thread.
+     *
+     * @param context {@link Context}
+     */
+    @SuppressLint("InflateParams")
+    synchronized void prewarm(Context context) {
+        if (!mViews.isEmpty()) {
+            return;
+        }
+
+        final View inflated = LayoutInflater.from(context.getApplicationContext())
+                .inflate(R.layout.super_toast_view, null);
+        if (mDefaultTextColors == null) {
+            captureDefaults((TextView) inflated);
+        }
+        mViews.addLast(inflated);
+    }
+
+    /**
+     * Resets the view and returns it to the pool. The view is dropped if the pool is full.
+     * A view released before any was inflated by the pool provides the layout defaults.
+     *
+     * @param view {@link View} inflated from the SuperToast layout, no longer attached to a window
+     */
+    synchronized void release(View view) {
+        if (view == null || mViews.size() >= mMaxSize) {
+            return;
+        }
+
+        if (mDefaultTextColors == null) {
+            captureDefaults((TextView) view);
+        }
+        reset((TextView) view);
+        mViews.addLast(view);
+    }
+
+    /**
+     * Returns the number of views served from the pool.
+     *
+     * @return int
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of views that had to be inflated.
+     *
+     * @return int
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the number of idle views in the pool.
+     *
+     * @return int
+     */
+    public synchronized int size() {
+        return mViews.size();
+    }
+
+    private void captureDefaults(TextView textView) {
+        mDefaultTextColors = textView.getTextColors();
+        mDefaultTextSize = textView.getTextSize();
+        mDefaultTypeface = textView.getTypeface();
+        mDefaultPaddingLeft = textView.getPaddingLeft();
+        mDefaultPaddingTop = textView.getPaddingTop();
+        mDefaultPaddingRight = textView.getPaddingRight();
+        mDefaultPaddingBottom = textView.getPaddingBottom();
+    }
+
+    private void reset(TextView textView) {
+        /* Views hosted in a container fade in and may be translated */
+        textView.animate().cancel();
+        textView.setAlpha(1f);
+        textView.setTranslationX(0f);
+        textView.setTranslationY(0f);
+        textView.setText(null);
+        textView.setTextColor(mDefaultTextColors);
+        textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, mDefaultTextSize);
+        textView.setTypeface(mDefaultTypeface);
+        final Drawable background = ResourceCache.getInstance()
+                .getDrawable(textView.getContext(), R.drawable.super_toast_bg_shape);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            textView.setBackground(background);
+        } else {
+            textView.setBackgroundDrawable(background);
+        }
+        textView.setCompoundDrawablesWithIntrinsicBounds(null, null, null, null);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            textView.setCompoundDrawablesRelativeWithIntrinsicBounds(null, null, null, null);
+        }
+        textView.setPadding(mDefaultPaddingLeft, mDefaultPaddingTop, mDefaultPaddingRight, mDefaultPaddingBottom);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.view.WindowManager;
+import android.view.animation.AnimationUtils;
+
+import java.util.Arrays;
+
+/**
+ * Hosts each {@link SuperToast} in a TYPE_TOAST window of its own, the default. The
+ * enter and exit times are the durations of the window animations of the SuperToast.
+ */
+final class WindowToastHost implements ToastHost {
+
+    /* Used when the duration of a window animation cannot be resolved */
+    private static final long FALLBACK_ANIMATION_DURATION = 500;
+
+    /* Sorted window animation attributes resolved from an animation style */
+    private static final int[] WINDOW_ANIMATION_ATTRS = {
+            android.R.attr.windowEnterAnimation,
+            android.R.attr.windowExitAnimation
+    };
+
+    /* Window animation durations indexed by Animations ordinal, -1 until resolved */
+    private final long[] mEnterDurations = new long[SuperToast.Animations.values().length];
+    private final long[] mExitDurations = new long[SuperToast.Animations.values().length];
+
+    WindowToastHost() {
+        Arrays.fill(mEnterDurations, -1);
+        Arrays.fill(mExitDurations, -1);
+    }
+
+    @Override
+    public boolean attach(SuperToast superToast, WindowManager.LayoutParams params) {
+        final WindowManager windowManager = superToast.getWindowManager();
+        if (windowManager == null) {
+            return false;
+        }
+
+        windowManager.addView(superToast.getBoundView(), params);
+        return true;
+    }
+
+    @Override
+    public void updateLayout(SuperToast superToast, WindowManager.LayoutParams params) {
+        superToast.getWindowManager().updateViewLayout(superToast.getBoundView(), params);
+    }
+
+    @Override
+    public void detach(SuperToast superToast) {
+        superToast.getWindowManager().removeView(superToast.getBoundView());
+    }
+
+    @Override
+    public long getEnterDuration(SuperToast superToast) {
+        final int index = superToast.getAnimations().ordinal();
+        if (mEnterDurations[index] < 0) {
+            resolveAnimationDurations(superToast);
+        }
+        return mEnterDurations[index];
+    }
+
+    @Override
+    public long getExitDuration(SuperToast superToast) {
+        final int index = superToast.getAnimations().ordinal();
+        if (mExitDurations[index] < 0) {
+            resolveAnimationDurations(superToast);
+        }
+        return mExitDurations[index];
+    }
+
+    /* Read the enter/exit animations of the window animation style and cache their durations */
+    private void resolveAnimationDurations(SuperToast superToast) {
+        final Context context = superToast.getContext();
+        final int index = superToast.getAnimations().ordinal();
+
+        final TypedArray typedArray = context.obtainStyledAttributes(
+                superToast.getAnimation(), WINDOW_ANIMATION_ATTRS);
+
+        mEnterDurations[index] = loadAnimationDuration(context, typedArray.getResourceId(0, 0));
+        mExitDurations[index] = loadAnimationDuration(context, typedArray.getResourceId(1, 0));
+
+        typedArray.recycle();
+    }
+
+    private static long loadAnimationDuration(Context context, int animationResource) {
+        if (animationResource == 0) {
+            return FALLBACK_ANIMATION_DURATION;
+        }
+
+        try {
+            return AnimationUtils.loadAnimation(context, animationResource).computeDurationHint();
+        } catch (Resources.NotFoundException e) {
+            return FALLBACK_ANIMATION_DURATION;
+        }
+    }
+
+}
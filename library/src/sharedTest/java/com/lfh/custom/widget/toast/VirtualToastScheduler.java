@@ -0,0 +1,182 @@
+package com.lfh.custom.widget.toast;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * {@link ToastScheduler} with a virtual clock for tests and benchmarks. Time only moves
+ * when {@link #advanceTo(long)}, {@link #advanceBy(long)} or {@link #runUntilIdle()} is
+ * called, and due tasks run on the calling thread, so a whole SuperToast lifecycle is
+ * simulated without waiting in real time. The thread that creates the scheduler is the
+ * scheduler thread, tasks may be posted from any thread.
+ */
+public final class VirtualToastScheduler implements ToastScheduler {
+
+    /* Guards against a task that keeps rescheduling itself */
+    private static final int MAX_TASKS_PER_RUN = 10000000;
+
+    private static final class Task implements Comparable<Task> {
+
+        private final Runnable mRunnable;
+        private final long mTime;
+        private final long mOrder;
+
+        private Task(Runnable runnable, long time, long order) {
+            this.mRunnable = runnable;
+            this.mTime = time;
+            this.mOrder = order;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (mTime != other.mTime) {
+                return mTime < other.mTime ? -1 : 1;
+            }
+            return mOrder < other.mOrder ? -1 : (mOrder == other.mOrder ? 0 : 1);
+        }
+    }
+
+    private final PriorityQueue<Task> mTasks = new PriorityQueue<Task>();
+    private final Thread mThread = Thread.currentThread();
+    private long mNow;
+    private long mNextOrder;
+    private long mScheduleCount;
+    private long mRunCount;
+
+    public VirtualToastScheduler() {
+    }
+
+    /**
+     * @param startTime initial value of the clock
+     */
+    public VirtualToastScheduler(long startTime) {
+        this.mNow = startTime;
+    }
+
+    @Override
+    public synchronized long now() {
+        return mNow;
+    }
+
+    @Override
+    public synchronized void scheduleAt(Runnable task, long uptimeMillis) {
+        mTasks.add(new Task(task, uptimeMillis, mNextOrder++));
+        mScheduleCount++;
+    }
+
+    @Override
+    public synchronized void cancel(Runnable task) {
+        final Iterator<Task> iterator = mTasks.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mRunnable == task) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void post(Runnable task) {
+        scheduleAt(task, mNow);
+    }
+
+    @Override
+    public boolean isSchedulerThread() {
+        return Thread.currentThread() == mThread;
+    }
+
+    /**
+     * Moves the clock forward, running every task that becomes due in time order.
+     *
+     * @param time new value of the clock, ignored if in the past
+     */
+    public void advanceTo(long time) {
+        for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+            final Task task;
+            synchronized (this) {
+                task = mTasks.peek();
+                if (task == null || task.mTime > time) {
+                    mNow = Math.max(mNow, time);
+                    return;
+                }
+                mTasks.poll();
+                mNow = Math.max(mNow, task.mTime);
+                mRunCount++;
+            }
+            task.mRunnable.run();
+        }
+        throw new IllegalStateException("Tasks keep scheduling each other at " + mNow);
+    }
+
+    /**
+     * Moves the clock forward by the given number of milliseconds.
+     *
+     * @param millis long
+     */
+    public void advanceBy(long millis) {
+        advanceTo(now() + millis);
+    }
+
+    /**
+     * Runs the tasks that are due without moving the clock, e.g. after a post from
+     * another thread.
+     */
+    public void runDueTasks() {
+        advanceTo(now());
+    }
+
+    /**
+     * Moves the clock from task to task until nothing is scheduled.
+     */
+    public void runUntilIdle() {
+        for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+            final long next;
+            synchronized (this) {
+                if (mTasks.isEmpty()) {
+                    return;
+                }
+                next = mTasks.peek().mTime;
+            }
+            advanceTo(next);
+        }
+        throw new IllegalStateException("Tasks keep scheduling each other at " + now());
+    }
+
+    /**
+     * Returns the number of tasks waiting to run.
+     *
+     * @return int
+     */
+    public synchronized int getPendingCount() {
+        return mTasks.size();
+    }
+
+    /**
+     * Returns the time of the next task, or -1 if nothing is scheduled.
+     *
+     * @return long
+     */
+    public synchronized long getNextTaskTime() {
+        final Task task = mTasks.peek();
+        return task == null ? -1 : task.mTime;
+    }
+
+    /**
+     * Returns the number of tasks scheduled or posted so far.
+     *
+     * @return long
+     */
+    public synchronized long getScheduleCount() {
+        return mScheduleCount;
+    }
+
+    /**
+     * Returns the number of tasks that ran so far, i.e. the number of wakeups a real
+     * scheduler would have had.
+     *
+     * @return long
+     */
+    public synchronized long getRunCount() {
+        return mRunCount;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The manager applies the {@link BacklogPolicy} it was given when it was set, with the
+ * same overflow policies as the queues of {@link ToastUtil}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class BacklogPolicyTest {
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+    private final List<String> mDismissed = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setBacklogPolicy(new BacklogPolicy());
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void dropNewestKeepsTheOldestPending() {
+        final BacklogPolicy policy = new BacklogPolicy();
+        policy.setMaxQueueDepth(2);
+        policy.setOverflow(ToastUtil.OverflowPolicy.DROP_NEWEST);
+        SuperToast.setBacklogPolicy(policy);
+
+        for (int i = 0; i < 5; i++) {
+            show("toast " + i);
+        }
+        mScheduler.runUntilIdle();
+
+        assertEquals(Arrays.asList("toast 0", "toast 1", "toast 2"), mDismissed);
+    }
+
+    @Test
+    public void changesAfterSettingDoNotReachTheManager() {
+        final BacklogPolicy policy = new BacklogPolicy();
+        policy.setMaxQueueDepth(1);
+        SuperToast.setBacklogPolicy(policy);
+        policy.setMaxQueueDepth(0);
+
+        for (int i = 0; i < 4; i++) {
+            show("toast " + i);
+        }
+        mScheduler.runUntilIdle();
+
+        /* Still a queue depth of one, the oldest pending make room for the newest */
+        assertEquals(Arrays.asList("toast 0", "toast 3"), mDismissed);
+    }
+
+    @Test
+    public void coalesceMergesPendingDuplicates() {
+        final BacklogPolicy policy = new BacklogPolicy();
+        policy.setOverflow(ToastUtil.OverflowPolicy.COALESCE);
+        SuperToast.setBacklogPolicy(policy);
+
+        show("showing");
+        for (int i = 0; i < 3; i++) {
+            show("duplicate");
+        }
+        mScheduler.runUntilIdle();
+
+        assertEquals(Arrays.asList("showing", "duplicate"), mDismissed);
+    }
+
+    private void show(final String text) {
+        final SuperToast superToast = SuperToast.create(mContext, text, SuperToast.Duration.VERY_SHORT);
+        superToast.setOnDismissListener(new SuperToast.OnDismissListener() {
+            @Override
+            public void onDismiss(View view) {
+                mDismissed.add(text);
+            }
+        });
+        superToast.show();
+    }
+
+}
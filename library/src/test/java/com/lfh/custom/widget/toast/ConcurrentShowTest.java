@@ -0,0 +1,110 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 32 threads show SuperToasts while the scheduler thread keeps draining them: every
+ * SuperToast is shown exactly once and those of one thread keep their order.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ConcurrentShowTest {
+
+    private static final int PRODUCERS = 32;
+    private static final int PER_PRODUCER = 100;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void superToastsFromManyThreadsAreAllShown() throws InterruptedException {
+        /* Only touched on the scheduler thread, which runs the dismiss listeners */
+        final List<List<Integer>> dismissed = new ArrayList<List<Integer>>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            dismissed.add(new ArrayList<Integer>());
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger(PRODUCERS);
+        final Thread[] producers = new Thread[PRODUCERS];
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < PER_PRODUCER; i++) {
+                            final int index = i;
+                            final SuperToast superToast = SuperToast.create(mContext,
+                                    producer + ":" + i, SuperToast.Duration.VERY_SHORT);
+                            superToast.setOnDismissListener(new SuperToast.OnDismissListener() {
+                                @Override
+                                public void onDismiss(View view) {
+                                    dismissed.get(producer).add(index);
+                                }
+                            });
+                            superToast.show();
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }
+            });
+            producers[p].start();
+        }
+
+        start.countDown();
+
+        /* Drain and show on the scheduler thread while the producers are still posting */
+        while (running.get() > 0) {
+            mScheduler.advanceBy(100);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        mScheduler.runUntilIdle();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final List<Integer> indexes = dismissed.get(p);
+            assertEquals(PER_PRODUCER, indexes.size());
+            for (int i = 0; i < PER_PRODUCER; i++) {
+                assertEquals(i, (int) indexes.get(i));
+            }
+        }
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+}
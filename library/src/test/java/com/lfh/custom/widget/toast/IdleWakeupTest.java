@@ -0,0 +1,103 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Counts the wakeups of the scheduler over a simulated idle hour: once the last toast is
+ * gone nothing may stay scheduled.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class IdleWakeupTest {
+
+    private static final long ONE_HOUR = 60 * 60 * 1000;
+
+    /* The end of the dedup window, which attaches the toast, and its hide deadline */
+    private static final long WAKEUPS_PER_TOAST = 2;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setHostMode(mContext, SuperToast.HostMode.WINDOW);
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void idleHourHasNoWakeups() {
+        final long scheduled = mScheduler.getScheduleCount();
+        final long runs = mScheduler.getRunCount();
+
+        mScheduler.advanceBy(ONE_HOUR);
+
+        assertEquals(scheduled, mScheduler.getScheduleCount());
+        assertEquals(runs, mScheduler.getRunCount());
+    }
+
+    @Test
+    public void singleToastThenIdleHour() {
+        final long runs = mScheduler.getRunCount();
+
+        ToastUtil.show(mContext, "single");
+        mScheduler.advanceBy(ONE_HOUR);
+
+        final long wakeups = mScheduler.getRunCount() - runs;
+        assertEquals(WAKEUPS_PER_TOAST, wakeups);
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void burstThenIdleHour() {
+        final long runs = mScheduler.getRunCount();
+
+        /* One dedup window folds the burst into a single toast */
+        for (int i = 0; i < 100; i++) {
+            ToastUtil.show(mContext, "burst");
+        }
+        mScheduler.advanceBy(ONE_HOUR);
+
+        final long wakeups = mScheduler.getRunCount() - runs;
+        assertEquals(WAKEUPS_PER_TOAST, wakeups);
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void persistentWindowGoesIdle() {
+        SuperToast.setHostMode(mContext, SuperToast.HostMode.PERSISTENT_WINDOW);
+        final long runs = mScheduler.getRunCount();
+
+        ToastUtil.show(mContext, "persistent");
+        mScheduler.advanceBy(ONE_HOUR);
+
+        /* One more wakeup removes the idle container window */
+        final long wakeups = mScheduler.getRunCount() - runs;
+        assertEquals(WAKEUPS_PER_TOAST + 1, wakeups);
+        assertEquals(0, mScheduler.getPendingCount());
+
+        final long idleRuns = mScheduler.getRunCount();
+        mScheduler.advanceBy(ONE_HOUR);
+        assertEquals(idleRuns, mScheduler.getRunCount());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.lfh.custom.widget.toast;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MpscQueue} under many concurrent producers: nothing is lost or duplicated and
+ * the elements of each producer come out in the order they were offered.
+ */
+public class MpscQueueTest {
+
+    private static final int PRODUCERS = 32;
+    private static final int PER_PRODUCER = 20000;
+
+    @Test
+    public void pollReturnsOfferedElementsInOrder() {
+        final MpscQueue<String> queue = new MpscQueue<String>();
+        assertTrue(queue.isEmpty());
+
+        queue.offer("a");
+        queue.offer("b");
+
+        assertEquals("a", queue.poll());
+        assertEquals("b", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        final MpscQueue<Long> queue = new MpscQueue<Long>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] producers = new Thread[PRODUCERS];
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final long producer = p;
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < PER_PRODUCER; i++) {
+                        queue.offer(producer << 32 | i);
+                    }
+                }
+            });
+            producers[p].start();
+        }
+
+        /* The test thread is the single consumer and polls while the producers are running */
+        final int[] next = new int[PRODUCERS];
+        int received = 0;
+        start.countDown();
+
+        while (received < PRODUCERS * PER_PRODUCER) {
+            final Long value = queue.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            final int producer = (int) (value >>> 32);
+            assertEquals(next[producer], (int) (long) value);
+            next[producer]++;
+            received++;
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+}
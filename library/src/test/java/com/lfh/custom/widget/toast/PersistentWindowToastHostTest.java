@@ -0,0 +1,108 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.WindowManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The window of the {@link PersistentWindowToastHost} only covers the SuperToasts it shows
+ * and behaves like a SuperToast window otherwise.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class PersistentWindowToastHostTest {
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setHostMode(mContext, SuperToast.HostMode.PERSISTENT_WINDOW);
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setMaxVisible(1);
+        SuperToast.setHostMode(mContext, SuperToast.HostMode.WINDOW);
+        mScheduler.runUntilIdle();
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void windowWrapsTheSuperToastsAtTheirGravity() {
+        final SuperToast superToast = show(Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, 20, 64);
+        final PersistentWindowToastHost host = (PersistentWindowToastHost) superToast.getHost();
+        final WindowManager.LayoutParams params = host.getContainerParams();
+
+        assertEquals(WindowManager.LayoutParams.WRAP_CONTENT, params.width);
+        assertEquals(WindowManager.LayoutParams.WRAP_CONTENT, params.height);
+        assertEquals(Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, params.gravity);
+
+        /* The window moves along the centered axis, the edge offset is a margin inside it */
+        assertEquals(20, params.x);
+        assertEquals(0, params.y);
+        assertEquals(0f, superToast.getBoundView().getTranslationX(), 0f);
+    }
+
+    @Test
+    public void windowIsNeitherTouchableNorFocusableNorKeepsTheScreenOn() {
+        final SuperToast superToast = show(Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, 0, 64);
+        final int flags = ((PersistentWindowToastHost) superToast.getHost()).getContainerParams().flags;
+
+        assertTrue((flags & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE) != 0);
+        assertTrue((flags & WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE) != 0);
+        assertEquals(0, flags & WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+    }
+
+    @Test
+    public void otherGravityFallsBackToAWindowOfItsOwn() {
+        SuperToast.setMaxVisible(2);
+        final SuperToast bottom = show(Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, 0, 64);
+        final SuperToast top = show(Gravity.TOP | Gravity.CENTER_HORIZONTAL, 0, 64);
+
+        assertTrue(bottom.getHost() instanceof PersistentWindowToastHost);
+        assertTrue(top.getHost() instanceof WindowToastHost);
+    }
+
+    @Test
+    public void emptyWindowMovesToTheNextGravityAndIsRemovedWhenIdle() {
+        final SuperToast bottom = show(Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, 0, 64);
+        final PersistentWindowToastHost host = (PersistentWindowToastHost) bottom.getHost();
+        mScheduler.advanceBy(SuperToast.Duration.VERY_SHORT + 1000);
+
+        final SuperToast top = show(Gravity.TOP | Gravity.CENTER_HORIZONTAL, 0, 64);
+        assertSame(host, top.getHost());
+        assertEquals(Gravity.TOP | Gravity.CENTER_HORIZONTAL, host.getContainerParams().gravity);
+
+        mScheduler.runUntilIdle();
+        assertNull(host.getContainerParams());
+    }
+
+    /* Shows a SuperToast and runs until it is attached */
+    private SuperToast show(int gravity, int xOffset, int yOffset) {
+        final SuperToast superToast = SuperToast.create(mContext, "toast " + gravity, SuperToast.Duration.VERY_SHORT);
+        superToast.setGravity(gravity, xOffset, yOffset);
+        superToast.show();
+        mScheduler.runDueTasks();
+        return superToast;
+    }
+
+}
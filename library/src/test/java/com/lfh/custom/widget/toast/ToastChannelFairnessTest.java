@@ -0,0 +1,119 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Channels take turns in the queue of the manager and keep their backlog there.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastChannelFairnessTest {
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+    private final List<String> mDismissed = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void floodingChannelDoesNotHoldBackOthers() {
+        final ToastChannel flood = ToastUtil.getChannel("fairness-flood");
+        final ToastChannel rare = ToastUtil.getChannel("fairness-rare");
+
+        for (int i = 0; i < 64; i++) {
+            show(flood, "flood " + i);
+        }
+        show(rare, "rare 0");
+        show(rare, "rare 1");
+
+        mScheduler.runUntilIdle();
+
+        assertEquals(66, mDismissed.size());
+        assertEquals(Arrays.asList("flood 0", "rare 0", "flood 1", "rare 1", "flood 2"),
+                mDismissed.subList(0, 5));
+    }
+
+    @Test
+    public void directSuperToastsTakeTurnsWithChannels() {
+        final ToastChannel flood = ToastUtil.getChannel("fairness-direct");
+
+        for (int i = 0; i < 3; i++) {
+            show(flood, "flood " + i);
+        }
+        show(null, "direct 0");
+
+        mScheduler.runUntilIdle();
+
+        assertEquals(Arrays.asList("flood 0", "direct 0", "flood 1", "flood 2"), mDismissed);
+    }
+
+    @Test
+    public void pendingSuperToastsOfAChannelStayWithinItsBacklog() {
+        final ToastChannel channel = ToastUtil.getChannel("fairness-backlog");
+        channel.setMaxBacklog(4);
+
+        for (int i = 0; i < 10; i++) {
+            show(channel, "toast " + i);
+        }
+
+        mScheduler.runUntilIdle();
+
+        /* The first one is shown at once, the oldest pending ones make room for the newest */
+        assertEquals(Arrays.asList("toast 0", "toast 6", "toast 7", "toast 8", "toast 9"), mDismissed);
+    }
+
+    @Test
+    public void dropNewestKeepsTheOldestPending() {
+        final ToastChannel channel = ToastUtil.getChannel("fairness-drop-newest");
+        channel.setMaxBacklog(2);
+        channel.setOverflowPolicy(ToastUtil.OverflowPolicy.DROP_NEWEST);
+
+        for (int i = 0; i < 5; i++) {
+            show(channel, "toast " + i);
+        }
+
+        mScheduler.runUntilIdle();
+
+        assertEquals(Arrays.asList("toast 0", "toast 1", "toast 2"), mDismissed);
+    }
+
+    private void show(ToastChannel channel, final String text) {
+        final SuperToast superToast = SuperToast.create(mContext, text, SuperToast.Duration.VERY_SHORT);
+        superToast.setChannel(channel);
+        superToast.setOnDismissListener(new SuperToast.OnDismissListener() {
+            @Override
+            public void onDismiss(View view) {
+                mDismissed.add(text);
+            }
+        });
+        superToast.show();
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The pending toasts of {@link ToastUtil} stay bounded however many are posted, and no
+ * caller context outlives its post.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastRetentionTest {
+
+    private static final int POST_COUNT = 100000;
+
+    /* Far below what 100k retained messages and contexts would take */
+    private static final long MAX_RETAINED_BYTES = 4 * 1024 * 1024;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void queueStaysWithinItsCapacity() {
+        final ToastQueue<String> queue = new ToastQueue<String>(64, ToastUtil.OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < POST_COUNT; i++) {
+            final String message = "message " + i;
+            queue.offer(message, message);
+        }
+
+        assertEquals(64, queue.size());
+
+        final List<String> drained = new ArrayList<String>();
+        queue.drainTo(drained);
+        assertEquals("message " + (POST_COUNT - 64), drained.get(0));
+        assertEquals("message " + (POST_COUNT - 1), drained.get(63));
+    }
+
+    @Test
+    public void heapStaysFlatWhilePosting() {
+        final ToastChannel channel = ToastUtil.getChannel("retention");
+        final List<WeakReference<Context>> contexts = new ArrayList<WeakReference<Context>>();
+
+        /* Warm up the singletons and the queue before the baseline */
+        channel.show(mContext, "warm up");
+        mScheduler.runUntilIdle();
+        final long baseline = usedMemory();
+
+        for (int i = 0; i < POST_COUNT; i++) {
+            /* A throwaway context per post, like an Activity that is gone right after */
+            final Context context = new ContextWrapper(mContext);
+            if (i % 1000 == 0) {
+                contexts.add(new WeakReference<Context>(context));
+            }
+            channel.show(context, "message " + i);
+        }
+
+        final long retained = usedMemory() - baseline;
+        assertTrue("retained " + retained + " bytes", retained < MAX_RETAINED_BYTES);
+
+        for (WeakReference<Context> context : contexts) {
+            assertNull(context.get());
+        }
+
+        /* The window ends and at most the backlog of the channel is shown */
+        mScheduler.runUntilIdle();
+        assertEquals(0, mScheduler.getPendingCount());
+        assertTrue(usedMemory() - baseline < MAX_RETAINED_BYTES);
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        /* A single gc call is only a hint, keep collecting until the heap stops shrinking */
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            System.runFinalization();
+            final long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Full lifecycle simulation of a large number of SuperToasts on a {@link VirtualToastScheduler}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastSimulationTest {
+
+    private static final int TOAST_COUNT = 1000;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void thousandToastsRunInVirtualTime() {
+        final List<String> dismissed = new ArrayList<String>();
+        final long[] dismissTimes = new long[TOAST_COUNT];
+
+        for (int i = 0; i < TOAST_COUNT; i++) {
+            final String text = "toast " + i;
+            final SuperToast superToast = SuperToast.create(mContext, text, SuperToast.Duration.VERY_SHORT);
+            superToast.setOnDismissListener(new SuperToast.OnDismissListener() {
+                @Override
+                public void onDismiss(View view) {
+                    dismissTimes[dismissed.size()] = mScheduler.now();
+                    dismissed.add(text);
+                }
+            });
+            superToast.show();
+        }
+
+        final long start = System.nanoTime();
+        mScheduler.runUntilIdle();
+        final long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(TOAST_COUNT, dismissed.size());
+        for (int i = 0; i < TOAST_COUNT; i++) {
+            assertEquals("toast " + i, dismissed.get(i));
+        }
+
+        /* Every SuperToast takes the same enter, duration and exit time, so the schedule never drifts */
+        final long cycle = dismissTimes[1] - dismissTimes[0];
+        assertTrue(cycle >= SuperToast.Duration.VERY_SHORT);
+        for (int i = 1; i < TOAST_COUNT; i++) {
+            assertEquals(cycle, dismissTimes[i] - dismissTimes[i - 1]);
+        }
+        assertEquals(0, mScheduler.getPendingCount());
+
+        /* About half an hour of toasts, simulated well within a build */
+        assertTrue(dismissTimes[TOAST_COUNT - 1] >= (long) TOAST_COUNT * SuperToast.Duration.VERY_SHORT);
+        assertTrue("simulation took " + elapsedMillis + " ms", elapsedMillis < 5000);
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exact show and hide deadlines on a {@link VirtualToastScheduler}. A SuperToast hides
+ * once its enter animation and duration are over, and the next one is shown as soon as
+ * the exit animation of the previous one ends.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastTimingTest {
+
+    private static final long START_TIME = 10000;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler(START_TIME);
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setHostMode(mContext, SuperToast.HostMode.WINDOW);
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.TRAILING);
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void hideDeadlineIncludesTheEnterAnimation() {
+        final SuperToast superToast = create("first");
+        superToast.show();
+        assertTrue(superToast.isAttached());
+
+        final long hideTime = START_TIME + enter(superToast) + SuperToast.Duration.SHORT;
+        assertEquals(hideTime, superToast.getHideTime());
+        assertEquals(hideTime, mScheduler.getNextTaskTime());
+
+        mScheduler.advanceTo(hideTime - 1);
+        assertTrue(superToast.isAttached());
+
+        mScheduler.advanceTo(hideTime);
+        assertFalse(superToast.isAttached());
+    }
+
+    @Test
+    public void nextSuperToastWaitsForTheExitAnimation() {
+        final SuperToast first = create("first");
+        final SuperToast second = create("second");
+        first.show();
+        second.show();
+
+        final long hideTime = START_TIME + enter(first) + SuperToast.Duration.SHORT;
+        final long showTime = hideTime + exit(first);
+
+        mScheduler.advanceTo(hideTime);
+        assertFalse(first.isAttached());
+        assertEquals(showTime, mScheduler.getNextTaskTime());
+
+        mScheduler.advanceTo(showTime - 1);
+        assertFalse(second.isAttached());
+
+        mScheduler.advanceTo(showTime);
+        assertTrue(second.isAttached());
+        assertEquals(showTime + enter(second) + SuperToast.Duration.SHORT, second.getHideTime());
+    }
+
+    @Test
+    public void handoffWithoutExitAnimationLeavesNoGap() {
+        SuperToast.setHostMode(mContext, SuperToast.HostMode.PERSISTENT_WINDOW);
+        final SuperToast first = create("first");
+        final SuperToast second = create("second");
+        first.show();
+        second.show();
+
+        assertEquals(0, exit(first));
+        final long hideTime = START_TIME + enter(first) + SuperToast.Duration.SHORT;
+
+        /* The second SuperToast is attached in the same wakeup that hides the first one */
+        final long runs = mScheduler.getRunCount();
+        mScheduler.advanceTo(hideTime);
+        assertEquals(runs + 1, mScheduler.getRunCount());
+        assertFalse(first.isAttached());
+        assertTrue(second.isAttached());
+        assertEquals(hideTime + enter(second) + SuperToast.Duration.SHORT, second.getHideTime());
+    }
+
+    @Test
+    public void trailingWindowShowsExactlyAtItsEnd() {
+        ToastUtil.show(mContext, "trailing");
+        final long flushTime = START_TIME + 500;
+        assertEquals(flushTime, mScheduler.getNextTaskTime());
+
+        final long runs = mScheduler.getRunCount();
+        mScheduler.advanceTo(flushTime - 1);
+        assertEquals(runs, mScheduler.getRunCount());
+
+        /* Attached by the flush itself, the only task left is its hide deadline */
+        mScheduler.advanceTo(flushTime);
+        assertEquals(runs + 1, mScheduler.getRunCount());
+        assertEquals(flushTime + windowEnter() + SuperToast.Duration.VERY_SHORT, mScheduler.getNextTaskTime());
+    }
+
+    @Test
+    public void leadingEdgeShowsAtOnce() {
+        ToastUtil.setDedupMode(ToastUtil.DedupMode.LEADING_EDGE);
+        final long runs = mScheduler.getRunCount();
+
+        ToastUtil.show(mContext, "leading");
+
+        assertEquals(runs, mScheduler.getRunCount());
+        assertEquals(1, mScheduler.getPendingCount());
+        assertEquals(START_TIME + windowEnter() + SuperToast.Duration.VERY_SHORT, mScheduler.getNextTaskTime());
+    }
+
+    private SuperToast create(String text) {
+        return SuperToast.create(mContext, text, SuperToast.Duration.SHORT);
+    }
+
+    /* Enter duration of a SuperToast as created by ToastUtil, shown in a window */
+    private long windowEnter() {
+        return new WindowToastHost().getEnterDuration(create("prototype"));
+    }
+
+    private static long enter(SuperToast superToast) {
+        return superToast.getHost().getEnterDuration(superToast);
+    }
+
+    private static long exit(SuperToast superToast) {
+        return superToast.getHost().getExitDuration(superToast);
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.lfh.custom.widget.toast;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hit and miss counters of the {@link ToastViewPool}: once warmed up, SuperToasts never
+ * inflate a view.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ToastViewPoolTest {
+
+    private static final int TOAST_COUNT = 100;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+    private ToastViewPool mPool;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+        mPool = ManagerSuperToast.getInstance().getViewPool();
+
+        /* The pool is process wide, start every test without idle views whatever ran before */
+        while (mPool.size() > 0) {
+            mPool.acquire(mContext);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setMaxVisible(1);
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void steadyStateServesEveryViewFromThePool() {
+        show(1);
+
+        final int hits = mPool.getHitCount();
+        final int misses = mPool.getMissCount();
+
+        for (int i = 0; i < TOAST_COUNT; i++) {
+            show(1);
+        }
+
+        assertEquals(hits + TOAST_COUNT, mPool.getHitCount());
+        assertEquals(misses, mPool.getMissCount());
+    }
+
+    @Test
+    public void stackedSlotsMissOnlyWhileThePoolFills() {
+        SuperToast.setMaxVisible(3);
+        show(3);
+
+        final int hits = mPool.getHitCount();
+        final int misses = mPool.getMissCount();
+
+        for (int i = 0; i < TOAST_COUNT; i++) {
+            show(3);
+        }
+
+        assertEquals(hits + 3 * TOAST_COUNT, mPool.getHitCount());
+        assertEquals(misses, mPool.getMissCount());
+        assertTrue(mPool.size() <= 3);
+    }
+
+    @Test
+    public void exposedViewStaysWithItsSuperToast() {
+        show(1);
+        final int size = mPool.size();
+
+        final SuperToast superToast = SuperToast.create(mContext, "exposed", SuperToast.Duration.VERY_SHORT);
+        superToast.show();
+        final TextView textView = superToast.getTextView();
+        mScheduler.runUntilIdle();
+
+        /* The caller may still hold the view, it must not be handed to the next SuperToast */
+        assertSame(textView, superToast.getTextView());
+        assertEquals(size - 1, mPool.size());
+
+        final int misses = mPool.getMissCount();
+        show(1);
+        assertEquals(misses + 1, mPool.getMissCount());
+    }
+
+    @SuppressLint("InflateParams")
+    @Test
+    public void releaseKeepsThePoolBounded() {
+        final ToastViewPool pool = new ToastViewPool(2);
+
+        for (int i = 0; i < 5; i++) {
+            pool.release(LayoutInflater.from(mContext).inflate(R.layout.super_toast_view, null));
+        }
+
+        assertEquals(2, pool.size());
+        pool.acquire(mContext);
+        pool.acquire(mContext);
+        pool.acquire(mContext);
+        assertEquals(2, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+    }
+
+    /* Shows count SuperToasts at once and runs them to the end */
+    private void show(int count) {
+        for (int i = 0; i < count; i++) {
+            SuperToast.create(mContext, "toast " + i, SuperToast.Duration.VERY_SHORT).show();
+        }
+        mScheduler.runUntilIdle();
+    }
+
+}
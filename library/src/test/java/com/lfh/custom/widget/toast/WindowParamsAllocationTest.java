@@ -0,0 +1,101 @@
+package com.lfh.custom.widget.toast;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.WindowManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Counts the window params and views created on the show, display and remove path.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class WindowParamsAllocationTest {
+
+    private static final int TOAST_COUNT = 100;
+
+    private Context mContext;
+    private VirtualToastScheduler mScheduler;
+    private ManagerSuperToast mManager;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mScheduler = new VirtualToastScheduler();
+        SuperToast.setScheduler(mScheduler);
+        SuperToast.cancelAllSuperToasts();
+        mManager = ManagerSuperToast.getInstance();
+    }
+
+    @After
+    public void tearDown() {
+        SuperToast.cancelAllSuperToasts();
+        SuperToast.setScheduler(null);
+    }
+
+    @Test
+    public void steadyStateAllocatesNoParamsAndNoViews() {
+        /* The first SuperToast creates the template and inflates the pooled view */
+        SuperToast.create(mContext, "warm up", SuperToast.Duration.VERY_SHORT).show();
+        mScheduler.runUntilIdle();
+
+        final int params = mManager.getParamsAllocationCount();
+        final int misses = mManager.getViewPool().getMissCount();
+
+        for (int i = 0; i < TOAST_COUNT; i++) {
+            final SuperToast superToast = SuperToast.create(mContext, "toast " + i, SuperToast.Duration.VERY_SHORT);
+            superToast.show();
+            mScheduler.runUntilIdle();
+            assertFalse(superToast.isAttached());
+        }
+
+        assertEquals(params, mManager.getParamsAllocationCount());
+        assertEquals(misses, mManager.getViewPool().getMissCount());
+    }
+
+    @Test
+    public void displayedSuperToastsShareTheTemplate() {
+        final SuperToast first = SuperToast.create(mContext, "first", SuperToast.Duration.VERY_SHORT);
+        final SuperToast second = SuperToast.create(mContext, "second", SuperToast.Duration.VERY_SHORT);
+        first.show();
+        second.show();
+
+        final WindowManager.LayoutParams firstParams = first.getParams();
+        mScheduler.runUntilIdle();
+
+        assertSame(firstParams, second.getParams());
+    }
+
+    @Test
+    public void publicParamsAreACopy() {
+        final SuperToast superToast = SuperToast.create(mContext, "copy", SuperToast.Duration.VERY_SHORT);
+        final WindowManager.LayoutParams template = superToast.getParams();
+        final int y = template.y;
+
+        final WindowManager.LayoutParams copy = superToast.getWindowManagerParams();
+        assertNotSame(template, copy);
+        assertEquals(template.gravity, copy.gravity);
+        assertEquals(y, copy.y);
+
+        copy.y = y + 100;
+        copy.gravity = Gravity.TOP;
+
+        final SuperToast other = SuperToast.create(mContext, "other", SuperToast.Duration.VERY_SHORT);
+        assertSame(template, other.getParams());
+        assertEquals(y, template.y);
+        assertEquals(superToast.getGravity(), template.gravity);
+    }
+
+}